@@ -0,0 +1,84 @@
+package me.pikamug.localelib.benchmarks;
+
+import me.pikamug.localelib.LocaleKeys;
+import org.bukkit.Material;
+import org.bukkit.entity.EntityType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to parse a lang file the size of a vanilla one, in both the json and the legacy lang format.
+ * The files are generated from the Material and EntityType names, so no game assets are needed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LangFileBenchmark {
+    private static final String[] SUFFIXES = {"", ".desc", ".title", ".subtitle"};
+
+    private byte[] jsonFile;
+    private byte[] langFile;
+
+    @Setup
+    public void setup() {
+        final StringBuilder json = new StringBuilder("{\n");
+        final StringBuilder lang = new StringBuilder("## Generated for benchmarking\n");
+        for (final Material material : Material.values()) {
+            if (!material.isLegacy()) {
+                final String type = material.isBlock() ? "block" : "item";
+                addEntries(json, lang, type + ".minecraft." + material.name().toLowerCase(Locale.ROOT),
+                        material.name());
+            }
+        }
+        for (final EntityType type : EntityType.values()) {
+            addEntries(json, lang, "entity.minecraft." + type.name().toLowerCase(Locale.ROOT), type.name());
+        }
+        json.setLength(json.length() - 2);
+        json.append("\n}\n");
+        jsonFile = json.toString().getBytes(StandardCharsets.UTF_8);
+        langFile = lang.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void addEntries(final StringBuilder json, final StringBuilder lang, final String key,
+            final String name) {
+        final StringBuilder words = new StringBuilder();
+        for (final String word : name.split("_")) {
+            words.append(word.charAt(0)).append(word.substring(1).toLowerCase(Locale.ROOT)).append(' ');
+        }
+        final String value = words.toString().trim();
+        for (final String suffix : SUFFIXES) {
+            // Some values carry escapes and non-ASCII text, as vanilla ones do
+            final String text = suffix.isEmpty() ? value : value + " \u2013 \"" + suffix.substring(1) + "\" %s";
+            json.append("  \"").append(key).append(suffix).append("\": \"")
+                    .append(text.replace("\"", "\\\"")).append("\",\n");
+            lang.append(key).append(suffix).append('=').append(text).append('\n');
+        }
+    }
+
+    @Benchmark
+    public Map<String, String> loadJsonFile() {
+        return LocaleKeys.loadJsonFile(new ByteArrayInputStream(jsonFile));
+    }
+
+    @Benchmark
+    public Map<String, String> loadLangFile() {
+        return LocaleKeys.loadLangFile(new ByteArrayInputStream(langFile));
+    }
+}
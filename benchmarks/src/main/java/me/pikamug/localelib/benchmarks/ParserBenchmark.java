@@ -0,0 +1,75 @@
+package me.pikamug.localelib.benchmarks;
+
+import me.pikamug.localelib.LocaleParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of converting formatting tokens and building tellraw JSON for typical messages.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+    private static final String[] PLACEHOLDERS = {"<prefix>", "<item>", "<mob>"};
+    private static final String[] TRANSLATE_KEYS = {"item.minecraft.potion.effect.swiftness",
+            "block.minecraft.diamond_block", "entity.minecraft.zombie"};
+
+    @Param({"short", "long", "hex", "placeholders"})
+    public String kind;
+
+    private final LocaleParser parser = new LocaleParser();
+    private String raw;
+    private String converted;
+
+    @Setup
+    public void setup() {
+        switch (kind) {
+            case "short":
+                raw = "&aYou received <item>!";
+                break;
+            case "long":
+                final StringBuilder builder = new StringBuilder();
+                for (int i = 0; i < 12; i++) {
+                    builder.append("&").append(Integer.toHexString(i)).append("&lQuest step ").append(i)
+                            .append("&r: bring back a <item> before the sun sets over the hills. ");
+                }
+                raw = builder.toString();
+                break;
+            case "hex":
+                raw = "&#ff5555Fire &#ffaa00and &#ffff55light %#55ff55%are &#5555ffthe &#aa00aarewards "
+                        + "&#00aaaafor &#e0e0e0slaying <mob>";
+                break;
+            case "placeholders":
+                raw = "&7<prefix> <item> &7dropped by &c<mob>&7, then <prefix> <item> &7and <mob> &7again";
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown message kind " + kind);
+        }
+        converted = parser.convertFormattingTokens(raw);
+    }
+
+    @Benchmark
+    public String convertFormattingTokens() {
+        return parser.convertFormattingTokens(raw);
+    }
+
+    @Benchmark
+    public String buildTellrawJson() {
+        return parser.buildTellrawJson(converted, PLACEHOLDERS, TRANSLATE_KEYS);
+    }
+}
@@ -0,0 +1,94 @@
+package me.pikamug.localelib.benchmarks;
+
+import me.pikamug.localelib.LocaleManager;
+import org.bukkit.Material;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.EntityType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of key queries against the tables LocaleManager builds on a stub 1.13.2 server.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryBenchmark {
+    private LocaleManager manager;
+    private Material[] materials;
+    private EntityType[] entityTypes;
+    private String[] entityExtras;
+    private Map<Enchantment, Integer> enchantments;
+    private List<Material> inventory;
+    private int index;
+
+    @Setup
+    public void setup() {
+        manager = StubServer.getLocaleManager();
+        materials = new Material[]{Material.DIAMOND_SWORD, Material.STONE, Material.OAK_LOG, Material.POTION,
+                Material.ENCHANTED_BOOK, Material.WHITE_WOOL, Material.COOKED_BEEF, Material.SHULKER_BOX};
+        entityTypes = new EntityType[]{EntityType.ZOMBIE, EntityType.CREEPER, EntityType.VILLAGER,
+                EntityType.MUSHROOM_COW, EntityType.TROPICAL_FISH, EntityType.SNOWMAN};
+        entityExtras = new String[]{null, null, "FARMER", null, null, null};
+        enchantments = new LinkedHashMap<>();
+        enchantments.put(registered(Enchantment.DAMAGE_ALL), 5);
+        enchantments.put(registered(Enchantment.DURABILITY), 3);
+        enchantments.put(registered(Enchantment.MENDING), 1);
+        enchantments.put(registered(Enchantment.FIRE_ASPECT), 2);
+        // A double chest page, where stacks of the same material repeat
+        inventory = new ArrayList<>();
+        for (int i = 0; i < 54; i++) {
+            inventory.add(materials[i % 5]);
+        }
+    }
+
+    /**
+     * Gets the registered instance of an enchantment constant, as found on items, so that the
+     * benchmark measures the table lookup rather than the fallback for unknown enchantments.
+     */
+    private static Enchantment registered(final Enchantment constant) {
+        final Enchantment enchantment = Enchantment.getByKey(constant.getKey());
+        if (enchantment == null) {
+            throw new IllegalStateException("Enchantment " + constant.getKey() + " is not registered");
+        }
+        return enchantment;
+    }
+
+    @Benchmark
+    public String queryMaterial() {
+        return manager.queryMaterial(materials[index++ & 7]);
+    }
+
+    @Benchmark
+    public String queryEntityType() {
+        final int i = index++ % entityTypes.length;
+        return manager.queryEntityType(entityTypes[i], entityExtras[i]);
+    }
+
+    @Benchmark
+    public String[] queryMaterials() {
+        return manager.queryMaterials(inventory);
+    }
+
+    @Benchmark
+    public Map<Enchantment, String> queryEnchantments() {
+        return manager.queryEnchantments(enchantments);
+    }
+}
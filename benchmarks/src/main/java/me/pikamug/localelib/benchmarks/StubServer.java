@@ -0,0 +1,28 @@
+package me.pikamug.localelib.benchmarks;
+
+import me.pikamug.localelib.LocaleManager;
+import me.pikamug.localelib.TestServer;
+
+/**
+ * Shared state for running the benchmarks on the test server of the LocaleLib test jar, which
+ * also provides the NMS stand-ins that LocaleManager resolves item keys through.
+ */
+final class StubServer {
+    private static LocaleManager manager;
+
+    private StubServer() {
+    }
+
+    /**
+     * Gets a manager shared by all benchmarks, created on the test server.
+     *
+     * @return the manager
+     */
+    static synchronized LocaleManager getLocaleManager() {
+        if (manager == null) {
+            TestServer.install();
+            manager = new LocaleManager();
+        }
+        return manager;
+    }
+}
@@ -0,0 +1,142 @@
+package me.pikamug.localelib;
+
+import net.md_5.bungee.api.ChatColor;
+import net.md_5.bungee.api.chat.BaseComponent;
+import net.md_5.bungee.api.chat.TextComponent;
+import net.md_5.bungee.api.chat.TranslatableComponent;
+import org.bukkit.entity.Player;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Delivers compiled messages to players as BungeeCord chat components, bypassing the tellraw
+ * command. Only touched once {@link #isSupported()} has returned true, so that servers without
+ * the component API never load the classes referenced here.
+ */
+final class ComponentSender {
+    private static final Map<String, ChatColor> namedColors = new HashMap<>();
+    private static final MethodHandle chatColorOf;
+
+    static {
+        for (final String name : new String[]{"black", "dark_blue", "dark_green", "dark_aqua", "dark_red",
+                "dark_purple", "gold", "gray", "dark_gray", "blue", "green", "aqua", "red", "light_purple", "yellow",
+                "white"}) {
+            namedColors.put(name, ChatColor.valueOf(name.toUpperCase(Locale.ROOT)));
+        }
+        MethodHandle of = null;
+        try {
+            // Bukkit version is 1.16+ (for hex colors)
+            of = MethodHandles.publicLookup().findStatic(ChatColor.class, "of",
+                    MethodType.methodType(ChatColor.class, String.class));
+        } catch (final ReflectiveOperationException e) {
+            // Hex colors will be sent through tellraw
+        }
+        chatColorOf = of;
+    }
+
+    private ComponentSender() {
+    }
+
+    /**
+     * Checks whether the server provides translatable components and Player.Spigot#sendMessage.
+     *
+     * @return true if components can be sent directly
+     */
+    static boolean isSupported() {
+        try {
+            Class.forName("net.md_5.bungee.api.chat.TranslatableComponent");
+            Player.Spigot.class.getMethod("sendMessage", BaseComponent.class);
+            return namedColors.size() == 16;
+        } catch (final ReflectiveOperationException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Send a compiled message to players as a single component tree, built once for all of them.
+     *
+     * @param players the players whom the message is to be sent to
+     * @param message the compiled message
+     * @param translateKeys the translation keys for each placeholder
+     * @return false if the message uses styles that cannot be expressed as components on this server
+     * @throws UnsupportedOperationException if the server does not implement Player.Spigot
+     */
+    static boolean send(final Collection<? extends Player> players, final LocaleParser.CompiledMessage message,
+            final String[] translateKeys) {
+        final BaseComponent component = toComponent(message, translateKeys);
+        if (component == null) {
+            return false;
+        }
+        for (final Player player : players) {
+            if (player != null) {
+                player.spigot().sendMessage(component);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Build a component tree equivalent to the tellraw JSON array of a compiled message. As with
+     * tellraw, the first segment is the parent of all others.
+     *
+     * @return the root component, or null if a segment cannot be expressed as a component
+     */
+    static BaseComponent toComponent(final LocaleParser.CompiledMessage message, final String[] translateKeys) {
+        final List<LocaleParser.Segment> segments = message.getSegments();
+        BaseComponent root = null;
+        for (final LocaleParser.Segment segment : segments) {
+            final BaseComponent component = segment.isPlaceholder()
+                    ? new TranslatableComponent(String.valueOf(translateKeys[segment.getPlaceholderIndex()]))
+                    : new TextComponent(segment.getText());
+            if (segment.getColor() != null) {
+                final ChatColor color = toChatColor(segment.getColor());
+                if (color == null) {
+                    return null;
+                }
+                component.setColor(color);
+            }
+            if (segment.isBold()) {
+                component.setBold(true);
+            }
+            if (segment.isItalic()) {
+                component.setItalic(true);
+            }
+            if (segment.isUnderline()) {
+                component.setUnderlined(true);
+            }
+            if (segment.isStrikethrough()) {
+                component.setStrikethrough(true);
+            }
+            if (segment.isObfuscated()) {
+                component.setObfuscated(true);
+            }
+            if (root == null) {
+                root = component;
+            } else {
+                root.addExtra(component);
+            }
+        }
+        return root != null ? root : new TextComponent("");
+    }
+
+    private static ChatColor toChatColor(final String color) {
+        if (color.charAt(0) != '#') {
+            return namedColors.get(color);
+        }
+        if (chatColorOf == null) {
+            return null;
+        }
+        try {
+            return (ChatColor) chatColorOf.invokeExact(color);
+        } catch (final Throwable e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package me.pikamug.localelib;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Streaming reader for flat JSON lang files, which decodes UTF-8 bytes directly and puts each
+ * string entry into the destination map as soon as it is read. Entries whose values are not
+ * strings are skipped, and remove any earlier entry with the same key.
+ */
+final class LangJsonReader {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int EOF = -1;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final StringBuilder text = new StringBuilder(64);
+    private int position;
+    private int limit;
+    private long offset;
+
+    private LangJsonReader(final InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Read a lang file consisting of a single JSON object into the specified map.
+     *
+     * @param in the UTF-8 encoded lang file
+     * @param destination the map to put entries into
+     * @throws IOException if the lang file could not be read or is malformed
+     */
+    static void read(final InputStream in, final Map<String, String> destination) throws IOException {
+        new LangJsonReader(in).readObject(destination);
+    }
+
+    private void readObject(final Map<String, String> destination) throws IOException {
+        int c = peekNonWhitespace();
+        if (c == 0xEF) {
+            // UTF-8 byte order mark
+            expect(0xEF);
+            expect(0xBB);
+            expect(0xBF);
+            peekNonWhitespace();
+        }
+        expect('{');
+        c = peekNonWhitespace();
+        if (c == '}') {
+            position++;
+            return;
+        }
+        while (true) {
+            expectNonWhitespace('"');
+            final String key = readString();
+            expectNonWhitespace(':');
+            if (peekNonWhitespace() == '"') {
+                position++;
+                destination.put(key, readString());
+            } else {
+                // A later value replaces an earlier one, even when it is not a string
+                destination.remove(key);
+                skipValue();
+            }
+            c = nextNonWhitespace();
+            if (c == '}') {
+                return;
+            } else if (c != ',') {
+                throw malformed(c);
+            }
+        }
+    }
+
+    /**
+     * Read the rest of a string whose opening quote has been consumed.
+     */
+    private String readString() throws IOException {
+        final StringBuilder text = this.text;
+        text.setLength(0);
+        while (true) {
+            final int start = position;
+            // Copy runs of plain ASCII without going through the decoder
+            while (position < limit) {
+                final byte b = buffer[position];
+                if (b == '"' || b == '\\' || b < 0) {
+                    break;
+                }
+                position++;
+            }
+            for (int i = start; i < position; i++) {
+                text.append((char) buffer[i]);
+            }
+            final int c = next();
+            if (c == '"') {
+                return text.toString();
+            } else if (c == '\\') {
+                readEscape(text);
+            } else if (c >= 0x80) {
+                readMultiByte(text, c);
+            } else if (c == EOF) {
+                throw malformed(c);
+            } else {
+                // Buffer was exhausted mid-run
+                text.append((char) c);
+            }
+        }
+    }
+
+    private void readEscape(final StringBuilder text) throws IOException {
+        final int c = next();
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                text.append((char) c);
+                break;
+            case 'b':
+                text.append('\b');
+                break;
+            case 'f':
+                text.append('\f');
+                break;
+            case 'n':
+                text.append('\n');
+                break;
+            case 'r':
+                text.append('\r');
+                break;
+            case 't':
+                text.append('\t');
+                break;
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    final int digit = Character.digit(next(), 16);
+                    if (digit < 0) {
+                        throw malformed(c);
+                    }
+                    value = (value << 4) | digit;
+                }
+                text.append((char) value);
+                break;
+            default:
+                throw malformed(c);
+        }
+    }
+
+    /**
+     * Decode a multi-byte UTF-8 sequence, substituting U+FFFD for malformed input.
+     */
+    private void readMultiByte(final StringBuilder text, final int lead) throws IOException {
+        final int length;
+        int codePoint;
+        if ((lead & 0xE0) == 0xC0) {
+            length = 1;
+            codePoint = lead & 0x1F;
+        } else if ((lead & 0xF0) == 0xE0) {
+            length = 2;
+            codePoint = lead & 0x0F;
+        } else if ((lead & 0xF8) == 0xF0) {
+            length = 3;
+            codePoint = lead & 0x07;
+        } else {
+            text.append('\uFFFD');
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            final int c = peek();
+            if ((c & 0xC0) != 0x80) {
+                text.append('\uFFFD');
+                return;
+            }
+            position++;
+            codePoint = (codePoint << 6) | (c & 0x3F);
+        }
+        if (codePoint < (length == 1 ? 0x80 : length == 2 ? 0x800 : 0x10000)
+                || (codePoint >= 0xD800 && codePoint <= 0xDFFF) || codePoint > Character.MAX_CODE_POINT) {
+            text.append('\uFFFD');
+        } else {
+            text.appendCodePoint(codePoint);
+        }
+    }
+
+    /**
+     * Skip a value that is not a string, including nested objects and arrays.
+     */
+    private void skipValue() throws IOException {
+        int depth = 0;
+        while (true) {
+            final int c = peek();
+            switch (c) {
+                case '"':
+                    position++;
+                    skipString();
+                    break;
+                case '{':
+                case '[':
+                    position++;
+                    depth++;
+                    break;
+                case '}':
+                case ']':
+                    if (depth == 0) {
+                        return;
+                    }
+                    position++;
+                    depth--;
+                    break;
+                case ',':
+                    if (depth == 0) {
+                        return;
+                    }
+                    position++;
+                    break;
+                case EOF:
+                    throw malformed(c);
+                default:
+                    position++;
+            }
+        }
+    }
+
+    private void skipString() throws IOException {
+        while (true) {
+            final int c = next();
+            if (c == '"') {
+                return;
+            } else if (c == '\\') {
+                next();
+            } else if (c == EOF) {
+                throw malformed(c);
+            }
+        }
+    }
+
+    private void expect(final int expected) throws IOException {
+        final int c = next();
+        if (c != expected) {
+            throw malformed(c);
+        }
+    }
+
+    private void expectNonWhitespace(final int expected) throws IOException {
+        final int c = nextNonWhitespace();
+        if (c != expected) {
+            throw malformed(c);
+        }
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        final int c = peekNonWhitespace();
+        if (c != EOF) {
+            position++;
+        }
+        return c;
+    }
+
+    private int peekNonWhitespace() throws IOException {
+        while (true) {
+            final int c = peek();
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+            position++;
+        }
+    }
+
+    private int next() throws IOException {
+        final int c = peek();
+        if (c != EOF) {
+            position++;
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return EOF;
+        }
+        return buffer[position] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        offset += limit;
+        position = 0;
+        limit = 0;
+        final int read = in.read(buffer, 0, BUFFER_SIZE);
+        if (read <= 0) {
+            return false;
+        }
+        limit = read;
+        return true;
+    }
+
+    private IOException malformed(final int c) {
+        return new IOException("[LocaleLib] Malformed lang file at byte " + (offset + position)
+                + (c == EOF ? " (unexpected end of file)" : ""));
+    }
+}
@@ -0,0 +1,184 @@
+package me.pikamug.localelib;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Translation dictionaries for client locales, each loaded from a vanilla lang file in a local
+ * directory on first use. At most a fixed number of locales stay resident; past that, locales
+ * that no online player is using are evicted. Lookups of a resident locale do not lock.<p>
+ *
+ * Lang files are read outside of any lock on the map. The main thread never waits for one: it
+ * hands the read to the common pool and gets no dictionary until the read completes, while other
+ * threads read the file themselves or wait for the read in progress.<p>
+ *
+ * Dictionaries are loaded from async threads as well, so the locales in use are not read from
+ * the player list here but handed in by {@link LocaleListener} on the main thread.
+ */
+final class LocaleDictionaries {
+    private static final Map<String, String> MISSING = Collections.emptyMap();
+
+    private final File directory;
+    private final int maxResident;
+    private final Map<String, CompletableFuture<Map<String, String>>> resident = new ConcurrentHashMap<>();
+    private volatile Set<String> inUse = Collections.emptySet();
+
+    /**
+     * Create an empty set of dictionaries.
+     *
+     * @param directory the directory holding files such as {@code de_de.json}, or null for none
+     * @param maxResident the number of locales to keep loaded before evicting unused ones
+     */
+    LocaleDictionaries(final File directory, final int maxResident) {
+        this.directory = directory;
+        this.maxResident = maxResident;
+    }
+
+    /**
+     * Normalize a locale as sent by any client version, i.e. {@code en_US} or {@code en-us}, to the
+     * lower-case form used by modern lang files.
+     *
+     * @param locale the locale
+     * @return the normalized locale
+     */
+    static String normalize(final String locale) {
+        return locale.replace('-', '_').toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Gets the locale the player's client is set to.
+     *
+     * @param player the player
+     * @return the normalized locale
+     */
+    @SuppressWarnings("deprecation")
+    static String localeOf(final Player player) {
+        String locale;
+        try {
+            locale = player.getLocale();
+        } catch (final NoSuchMethodError e) {
+            // Bukkit version is 1.11.2 or below
+            locale = player.spigot().getLocale();
+        }
+        return locale != null ? normalize(locale) : "en_us";
+    }
+
+    /**
+     * Gets the dictionary of a locale, loading it if it is not resident.
+     *
+     * @param locale the normalized locale
+     * @return the dictionary, or null if no lang file exists for the locale or, on the main
+     * thread, if it is still being loaded
+     */
+    Map<String, String> get(final String locale) {
+        CompletableFuture<Map<String, String>> future = resident.get(locale);
+        if (future == null) {
+            if (directory == null) {
+                return null;
+            }
+            final CompletableFuture<Map<String, String>> created = new CompletableFuture<>();
+            future = resident.putIfAbsent(locale, created);
+            if (future == null) {
+                future = created;
+                if (Bukkit.isPrimaryThread()) {
+                    CompletableFuture.runAsync(() -> loadInto(locale, created));
+                } else {
+                    loadInto(locale, created);
+                }
+            }
+        }
+        final Map<String, String> dictionary = future.isDone() || !Bukkit.isPrimaryThread() ? future.join() : null;
+        return dictionary != MISSING ? dictionary : null;
+    }
+
+    /**
+     * Checks whether a locale is loaded, so that lookups no longer fall back for lack of it.
+     *
+     * @param locale the normalized locale
+     * @return true if the locale is resident and done loading, or there is no directory to load from
+     */
+    boolean isLoaded(final String locale) {
+        if (directory == null) {
+            return true;
+        }
+        final CompletableFuture<Map<String, String>> future = resident.get(locale);
+        return future != null && future.isDone();
+    }
+
+    /**
+     * Set the locales of online players, which are kept resident when evicting.
+     *
+     * @param locales the normalized locales in active use
+     */
+    void setInUse(final Set<String> locales) {
+        inUse = Collections.unmodifiableSet(new HashSet<>(locales));
+    }
+
+    /**
+     * Load a locale and complete its future, which waiting threads are released by even if
+     * loading fails.
+     */
+    private void loadInto(final String locale, final CompletableFuture<Map<String, String>> future) {
+        Map<String, String> dictionary = MISSING;
+        try {
+            dictionary = load(locale);
+        } finally {
+            future.complete(dictionary);
+        }
+        if (resident.size() > maxResident) {
+            evictUnused(locale);
+        }
+    }
+
+    /**
+     * Evict loaded locales that no online player is using, keeping the specified one.
+     */
+    private void evictUnused(final String keep) {
+        final Set<String> inUse = this.inUse;
+        final Iterator<Map.Entry<String, CompletableFuture<Map<String, String>>>> iterator
+                = resident.entrySet().iterator();
+        while (iterator.hasNext() && resident.size() > maxResident) {
+            final Map.Entry<String, CompletableFuture<Map<String, String>>> entry = iterator.next();
+            if (!entry.getKey().equals(keep) && !inUse.contains(entry.getKey()) && entry.getValue().isDone()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private Map<String, String> load(final String locale) {
+        // Lang files are lower-case since 1.11 and named like en_US.lang before that
+        final int split = locale.indexOf('_');
+        final String legacyName = split < 0 ? locale
+                : locale.substring(0, split) + locale.substring(split).toUpperCase(Locale.ROOT);
+        for (final String name : new String[]{locale + ".json", locale + ".lang", legacyName + ".lang"}) {
+            final File file = new File(directory, name);
+            if (!file.isFile()) {
+                continue;
+            }
+            try (InputStream inputStream = new FileInputStream(file)) {
+                final Map<String, String> dictionary = name.endsWith(".json") ? LocaleKeys.loadJsonFile(inputStream)
+                        : LocaleKeys.loadLangFile(inputStream);
+                if (!dictionary.isEmpty()) {
+                    return TranslationDictionary.of(dictionary);
+                }
+            } catch (final IOException e) {
+                Bukkit.getLogger().warning("[LocaleLib] Could not read " + file + ": " + e.getMessage());
+            }
+        }
+        Bukkit.getLogger().info("[LocaleLib] No lang file for locale " + locale + " in " + directory);
+        return MISSING;
+    }
+}
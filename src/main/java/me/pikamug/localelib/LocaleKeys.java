@@ -25,20 +25,95 @@
 package me.pikamug.localelib;
 
 import org.bukkit.Bukkit;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 public class LocaleKeys {
+    private static final String[] langAssets = {"assets/minecraft/lang/en_us.json", "assets/minecraft/lang/en_us.lang",
+            "assets/minecraft/lang/en_US.lang"};
+    private static final SharedKeys sharedBlockKeys = new SharedKeys(LocaleKeys::getBlockKeys);
+    private static final SharedKeys sharedItemKeys = new SharedKeys(LocaleKeys::getItemKeys);
+    private static final SharedKeys sharedPotionKeys1dot8 = new SharedKeys(LocaleKeys::getPotionKeys1dot8);
+    private static final SharedKeys sharedPotionKeys = new SharedKeys(LocaleKeys::getPotionKeys);
+    private static final SharedKeys sharedSplashPotionKeys = new SharedKeys(LocaleKeys::getSplashPotionKeys);
+    private static final SharedKeys sharedLingeringPotionKeys = new SharedKeys(LocaleKeys::getLingeringPotionKeys);
+    private static final SharedKeys sharedEntityKeys = new SharedKeys(LocaleKeys::getEntityKeys);
+
+    /**
+     * Gets the process-wide, unmodifiable copy of {@link #getBlockKeys()}, built on first use.
+     *
+     * @return map of legacy block keys
+     */
+    public static Map<String, String> getSharedBlockKeys() {
+        return sharedBlockKeys.get();
+    }
+
+    /**
+     * Gets the process-wide, unmodifiable copy of {@link #getItemKeys()}, built on first use.
+     *
+     * @return map of legacy item keys
+     */
+    public static Map<String, String> getSharedItemKeys() {
+        return sharedItemKeys.get();
+    }
+
+    /**
+     * Gets the process-wide, unmodifiable copy of {@link #getPotionKeys1dot8()}, built on first use.
+     *
+     * @return map of 1.8 potion keys
+     */
+    public static Map<String, String> getSharedPotionKeys1dot8() {
+        return sharedPotionKeys1dot8.get();
+    }
+
+    /**
+     * Gets the process-wide, unmodifiable copy of {@link #getPotionKeys()}, built on first use.
+     *
+     * @return map of legacy potion keys
+     */
+    public static Map<String, String> getSharedPotionKeys() {
+        return sharedPotionKeys.get();
+    }
+
+    /**
+     * Gets the process-wide, unmodifiable copy of {@link #getSplashPotionKeys()}, built on first use.
+     *
+     * @return map of legacy splash potion keys
+     */
+    public static Map<String, String> getSharedSplashPotionKeys() {
+        return sharedSplashPotionKeys.get();
+    }
+
+    /**
+     * Gets the process-wide, unmodifiable copy of {@link #getLingeringPotionKeys()}, built on first use.
+     *
+     * @return map of legacy lingering potion keys
+     */
+    public static Map<String, String> getSharedLingeringPotionKeys() {
+        return sharedLingeringPotionKeys.get();
+    }
+
+    /**
+     * Gets the process-wide, unmodifiable copy of {@link #getEntityKeys()}, built on first use.
+     *
+     * @return map of legacy entity keys
+     */
+    public static Map<String, String> getSharedEntityKeys() {
+        return sharedEntityKeys.get();
+    }
+
     public static LinkedHashMap<String, String> getBlockKeys() {
         final LinkedHashMap<String, String> keys = new LinkedHashMap<>();
         keys.put("AIR", "tile.air.name");
@@ -1007,58 +1082,126 @@ public class LocaleKeys {
         return keys;
     }
 
+    /**
+     * Gets the 1.13+ keys of entity types whose Bukkit name differs from their Minecraft name.
+     *
+     * @return map of EntityType name to key
+     */
+    public static Map<String, String> getRenamedEntityKeys() {
+        final LinkedHashMap<String, String> keys = new LinkedHashMap<>();
+        keys.put("MUSHROOM_COW", "entity.minecraft.mooshroom");
+        keys.put("SNOWMAN", "entity.minecraft.snow_golem");
+        keys.put("PIG_ZOMBIE", "entity.minecraft.zombie_pigman");
+        return keys;
+    }
+
     /**
      * Loads all the translation entries from lang file into a Properties object.
+     * Known asset paths are probed directly before falling back to a search of the server jar.
      * @return Properties object consisting of the english translations
      * @throws IOException if an error occurred when reading from lang file
      */
     public static Map<String, String> loadTranslations() throws IOException {
-        final ClassLoader classLoader = SystemResourcesUtil.getContextClassLoader();
-        final Iterator<String> matchingResources = SystemResourcesUtil.findResourcesBySearch(classLoader,"assets/minecraft/lang/", ".+(\\.json|\\.lang)");
-
-        Map<String, String> dictionary = new HashMap<>();
-        while (matchingResources.hasNext()) {
-            String resource = matchingResources.next();
+        return loadTranslations(null);
+    }
 
-            if (resource.endsWith("_all.json")
-                || resource.endsWith("_list.json")
-                || resource.endsWith("deprecated.json")) {
-                continue;
+    /**
+     * Loads all the translation entries from lang file into a Properties object, using a binary
+     * snapshot of a previous load if it is still valid for the current server and lang asset.
+     * The snapshot is (re)written whenever the lang file had to be parsed.
+     * @param snapshotFile File to read and write the snapshot at, or null to always parse
+     * @return Properties object consisting of the english translations
+     * @throws IOException if an error occurred when reading from lang file
+     */
+    public static Map<String, String> loadTranslations(final File snapshotFile) throws IOException {
+        final ClassLoader classLoader = SystemResourcesUtil.getContextClassLoader();
+        final String resource = findLangResource(classLoader);
+        Map<String, String> dictionary = null;
+        if (resource != null) {
+            final URL url = classLoader.getResource(resource);
+            String fingerprint = null;
+            if (snapshotFile != null && url != null) {
+                try {
+                    fingerprint = TranslationSnapshot.fingerprint(url);
+                } catch (final IOException e) {
+                    Bukkit.getLogger().warning("[LocaleLib] Could not fingerprint " + resource);
+                }
             }
-
-            try (InputStream inputStream = classLoader.getResourceAsStream(resource)) {
-                if (resource.endsWith(".json")) {
-                    dictionary = loadJsonFile(inputStream);
-                } else if (resource.endsWith(".lang")) {
-                    dictionary = loadLangFile(inputStream);
-                } else {
-                    dictionary = new HashMap<>();
+            if (fingerprint != null) {
+                final long start = System.nanoTime();
+                final TranslationSnapshot.Loaded loaded = TranslationSnapshot.read(snapshotFile, fingerprint);
+                if (loaded != null && !loaded.getDictionary().isEmpty()) {
+                    final long elapsed = System.nanoTime() - start;
+                    Bukkit.getLogger().info("[LocaleLib] Loaded " + loaded.getDictionary().size()
+                            + " translations from snapshot in " + TimeUnit.NANOSECONDS.toMillis(elapsed)
+                            + "ms (saved " + TimeUnit.NANOSECONDS.toMillis(Math.max(0, loaded.getParseNanos() - elapsed))
+                            + "ms of parsing)");
+                    return TranslationDictionary.of(loaded.getDictionary());
+                }
+            }
+            final long start = System.nanoTime();
+            dictionary = loadResource(classLoader, resource);
+            final long parseNanos = System.nanoTime() - start;
+            if (fingerprint != null && dictionary != null && !dictionary.isEmpty()) {
+                try {
+                    TranslationSnapshot.write(snapshotFile, fingerprint, dictionary, parseNanos);
+                } catch (final IOException e) {
+                    Bukkit.getLogger().warning("[LocaleLib] Could not write translation snapshot: " + e.getMessage());
                 }
             }
         }
+        if (dictionary == null) {
+            dictionary = new HashMap<>();
+        }
         if (dictionary.isEmpty()) {
             Bukkit.getLogger().warning("[LocaleLib] Locale asset could not be loaded!");
         }
-        return dictionary;
+        return TranslationDictionary.of(dictionary);
+    }
+
+    /**
+     * Finds the lang asset of the server, probing known asset paths before searching the server jar.
+     * @return the resource path, or null if none was found
+     * @throws IOException if an error occurred when searching the server jar
+     */
+    private static String findLangResource(final ClassLoader classLoader) throws IOException {
+        for (final String asset : langAssets) {
+            if (classLoader.getResource(asset) != null) {
+                return asset;
+            }
+        }
+        return SystemResourcesUtil.findFirstResourceBySearch(classLoader, "assets/minecraft/lang/",
+                ".+(\\.json|\\.lang)", r -> !r.endsWith("_all.json") && !r.endsWith("_list.json")
+                        && !r.endsWith("deprecated.json"));
+    }
+
+    /**
+     * Loads a single json or lang resource.
+     * @return map of translations, or null if the resource does not exist
+     * @throws IOException if an error occurred when reading from lang file
+     */
+    private static Map<String, String> loadResource(final ClassLoader classLoader, final String resource)
+            throws IOException {
+        try (InputStream inputStream = classLoader.getResourceAsStream(resource)) {
+            if (inputStream == null) {
+                return null;
+            }
+            if (resource.endsWith(".json")) {
+                return loadJsonFile(inputStream);
+            } else if (resource.endsWith(".lang")) {
+                return loadLangFile(inputStream);
+            }
+            return new HashMap<>();
+        }
     }
 
     public static HashMap<String, String> loadJsonFile(final InputStream inputStream) {
         final HashMap<String, String> map = new HashMap<>();
         try {
-            final JSONParser parser = new JSONParser();
-            final BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-            final JSONObject json = (JSONObject) parser.parse(reader);
-
-            for (Object key : json.keySet()) {
-                String keyStr = (String) key;
-
-                if(json.get(keyStr) instanceof String) {
-                    String valueStr = (String) json.get(keyStr);
-                    map.put(keyStr, valueStr);
-                }
-            }
-        } catch (IOException | ParseException e) {
+            LangJsonReader.read(inputStream, map);
+        } catch (IOException e) {
             e.printStackTrace();
+            map.clear();
         }
         return map;
     }
@@ -1066,7 +1209,8 @@ public class LocaleKeys {
     public static HashMap<String, String> loadLangFile(InputStream inputStream) {
         final HashMap<String, String> map = new HashMap<>();
         try {
-            final BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream,
+                    StandardCharsets.UTF_8));
             String line;
 
             while ((line = reader.readLine()) != null) {
@@ -1084,4 +1228,33 @@ public class LocaleKeys {
         }
         return map;
     }
+
+    /**
+     * Lazily builds one of the key tables into a compact, unmodifiable map shared by all managers.
+     */
+    private static final class SharedKeys {
+        private final Supplier<Map<String, String>> builder;
+        private volatile Map<String, String> keys;
+
+        private SharedKeys(final Supplier<Map<String, String>> builder) {
+            this.builder = builder;
+        }
+
+        private Map<String, String> get() {
+            Map<String, String> result = keys;
+            if (result == null) {
+                synchronized (this) {
+                    result = keys;
+                    if (result == null) {
+                        final Map<String, String> source = builder.get();
+                        final Map<String, String> compact = new HashMap<>((int) (source.size() / 0.75f) + 1);
+                        compact.putAll(source);
+                        result = Collections.unmodifiableMap(compact);
+                        keys = result;
+                    }
+                }
+            }
+            return result;
+        }
+    }
 }
@@ -24,6 +24,8 @@
 
 package me.pikamug.localelib;
 
+import org.bukkit.Bukkit;
+import org.bukkit.command.PluginCommand;
 import org.bukkit.plugin.java.JavaPlugin;
 
 @SuppressWarnings("unused")
@@ -32,7 +34,14 @@ public class LocaleLib extends JavaPlugin {
     
     @Override
     public void onEnable() {
-        manager = new LocaleManager();
+        // Load translations off the main thread so as not to hold up startup
+        manager = new LocaleManager(getDataFolder(),
+                task -> Bukkit.getScheduler().runTaskAsynchronously(this, task));
+        manager.registerListeners(this);
+        final PluginCommand command = getCommand("localelib");
+        if (command != null) {
+            command.setExecutor(new StatsCommand(manager));
+        }
     }
 
     @Override
@@ -0,0 +1,108 @@
+package me.pikamug.localelib;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLocaleChangeEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Keeps the rendered names of a manager warm for the locales of online players, and drops those
+ * of locales nobody uses anymore. The same locales are handed to the manager's dictionaries, so
+ * that eviction never has to read the player list off the main thread.
+ */
+final class LocaleListener implements Listener {
+    private final Plugin plugin;
+    private final RenderedNames renderedNames;
+    private final LocaleDictionaries localeDictionaries;
+
+    private LocaleListener(final Plugin plugin, final RenderedNames renderedNames,
+            final LocaleDictionaries localeDictionaries) {
+        this.plugin = plugin;
+        this.renderedNames = renderedNames;
+        this.localeDictionaries = localeDictionaries;
+    }
+
+    /**
+     * Register the listeners for the rendered names and dictionaries of a manager.
+     *
+     * @param plugin the plugin to register the listeners for
+     * @param renderedNames the rendered names to keep warm
+     * @param localeDictionaries the dictionaries to report the locales in use to
+     */
+    static void register(final Plugin plugin, final RenderedNames renderedNames,
+            final LocaleDictionaries localeDictionaries) {
+        final LocaleListener listener = new LocaleListener(plugin, renderedNames, localeDictionaries);
+        listener.retainOnlineLocales(null, null);
+        Bukkit.getPluginManager().registerEvents(listener, plugin);
+        try {
+            // Bukkit version is 1.12+
+            Class.forName("org.bukkit.event.player.PlayerLocaleChangeEvent");
+            Bukkit.getPluginManager().registerEvents(new LocaleChangeListener(listener), plugin);
+        } catch (final ClassNotFoundException e) {
+            // Locales will be picked up as names are rendered
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(final PlayerJoinEvent event) {
+        final String locale = LocaleDictionaries.localeOf(event.getPlayer());
+        retainOnlineLocales(null, locale);
+        warm(locale);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(final PlayerQuitEvent event) {
+        retainOnlineLocales(event.getPlayer(), null);
+    }
+
+    private void warm(final String locale) {
+        // Lang files are read off the main thread
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> renderedNames.warm(locale));
+    }
+
+    /**
+     * Retain the locales of online players.
+     *
+     * @param excluded a player whose current locale is not to be counted, or null
+     * @param extra a locale to retain as well, or null
+     */
+    private void retainOnlineLocales(final Player excluded, final String extra) {
+        final Set<String> locales = new HashSet<>();
+        for (final Player player : Bukkit.getOnlinePlayers()) {
+            if (player != excluded) {
+                locales.add(LocaleDictionaries.localeOf(player));
+            }
+        }
+        if (extra != null) {
+            locales.add(extra);
+        }
+        renderedNames.retain(locales);
+        localeDictionaries.setInUse(locales);
+    }
+
+    /**
+     * Kept apart so that servers without PlayerLocaleChangeEvent can still register the listener above.
+     */
+    private static final class LocaleChangeListener implements Listener {
+        private final LocaleListener parent;
+
+        private LocaleChangeListener(final LocaleListener parent) {
+            this.parent = parent;
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR)
+        public void onPlayerLocaleChange(final PlayerLocaleChangeEvent event) {
+            final String locale = LocaleDictionaries.normalize(event.getLocale());
+            parent.retainOnlineLocales(event.getPlayer(), locale);
+            parent.warm(locale);
+        }
+    }
+}
@@ -26,6 +26,7 @@ package me.pikamug.localelib;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.bukkit.Keyed;
 import org.bukkit.Material;
 import org.bukkit.block.data.Ageable;
 import org.bukkit.enchantments.Enchantment;
@@ -35,69 +36,179 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.EnchantmentStorageMeta;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.inventory.meta.PotionMeta;
+import org.bukkit.plugin.Plugin;
 import org.bukkit.potion.Potion;
+import org.bukkit.potion.PotionType;
 
+import java.io.File;
 import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+/**
+ * Resolves the translation keys of materials, entities and enchantments, and sends messages
+ * that clients render in their own language.<p>
+ *
+ * All state used to resolve keys is built in the constructor and never modified afterwards, so
+ * every query method, i.e. {@link #queryMaterial(Material)}, {@link #queryEntityType(EntityType, String)}
+ * and {@link #toServerLocale(String)}, may be called concurrently from any thread, such as the
+ * async chat thread, once the constructor has returned. Caches filled later on are concurrent
+ * maps or locked per stripe, except for the potion key cache, a plain array whose unsynchronized
+ * writes may race. That is harmless, as racing threads store equal immutable Strings and a missed
+ * write only means the key is built again. The same holds for building tellraw JSON with
+ * {@link LocaleParser}.<p>
+ *
+ * Send and broadcast methods must be called on the main thread. Where chat components are not
+ * available, i.e. on CraftBukkit, messages are sent with the tellraw command, and servers reject
+ * commands dispatched from other threads.
+ */
 @SuppressWarnings("unused")
 public class LocaleManager{
-    private static Class<?> craftMagicNumbers = null;
-    private static Class<?> itemClazz = null;
-    private static boolean oldVersion = false;
-    private static boolean hasBasePotionData = false;
-    private static boolean hasRepackagedNms = false;
-    private static boolean isPost1dot18 = false;
-    private final Map<String, String> oldBlocks = LocaleKeys.getBlockKeys();
-    private final Map<String, String> oldItems = LocaleKeys.getItemKeys();
-    private final Map<String, String> oldPotions1dot8 = LocaleKeys.getPotionKeys1dot8();
-    private final Map<String, String> oldPotions = LocaleKeys.getPotionKeys();
-    private final Map<String, String> oldLingeringPotions = LocaleKeys.getLingeringPotionKeys();
-    private final Map<String, String> oldSplashPotions = LocaleKeys.getSplashPotionKeys();
-    private final Map<String, String> oldEntities = LocaleKeys.getEntityKeys();
-    private Map<String, String> englishTranslations;
+    private static final long MATERIAL_WARMUP_BUDGET_MS = 2000;
+    private static final int MESSAGE_CACHE_SIZE = 512;
+    private static final int MESSAGE_CACHE_STRIPES = 16;
+    private static final int MAX_FAILED_QUERIES = 4096;
+    private static final long FAILURE_LOG_INTERVAL_MS = 60000;
+    // Compared by identity, so that it cannot be mistaken for a key that happens to be empty
+    private static final String QUERY_FAILED = new String("");
+    private static final int MAX_RESIDENT_LOCALES = 8;
+    private static final String SERVER_LOCALE = "en_us";
+    private static final String[] POTION_PLACEHOLDERS = new String[]{"<prefix>", "<item>"};
+    private static final String[] MOB_PLACEHOLDERS = new String[]{"<mob>"};
+    private final ServerCapabilities capabilities;
+    private final Class<?> craftMagicNumbers;
+    private final Class<?> itemClazz;
+    private final MethodHandle getItemHandle;
+    private final MethodHandle descriptionIdHandle;
+    private final boolean oldVersion;
+    private volatile boolean componentsEnabled;
+    private final EnumMap<Material, String> materialKeys;
+    private final EnumMap<Material, String[]> legacyMaterialKeys;
+    private final EnumMap<Material, Map<String, String>> legacyPotionKeys;
+    private final EnumSet<Material> potionMaterials;
+    private final EnumMap<PotionType, String> potionSuffixes;
+    private final int[] potionMaterialSlots;
+    private final String[] potionKeyCache;
+    private final EnumMap<EntityType, String> entityKeys;
+    private final EnumMap<EntityType, EntityVariants> entityVariants;
+    private final Map<Enchantment, String> enchantmentKeys;
+    private volatile Map<String, String> englishTranslations = Collections.emptyMap();
+    private final CompletableFuture<LocaleManager> ready = new CompletableFuture<>();
+    private final LocaleDictionaries localeDictionaries;
+    private final RenderedNames renderedNames = new RenderedNames(this);
     private final LocaleParser localeParser = new LocaleParser();
+    private final LocaleMetrics metrics = new LocaleMetrics();
+    private final MessageCache messageCache = new MessageCache(MESSAGE_CACHE_SIZE, MESSAGE_CACHE_STRIPES);
+    private final Map<Long, String> failedQueries = new ConcurrentHashMap<>();
+    private final QueryFailureLog failureLog = new QueryFailureLog(FAILURE_LOG_INTERVAL_MS);
 
     public LocaleManager() {
-        oldVersion = isBelow113();
-        if (Material.getMaterial("LINGERING_POTION") != null) {
-            // Bukkit version is 1.9+
-            hasBasePotionData = true;
+        this(null);
+    }
+
+    /**
+     * Create a manager that keeps a binary snapshot of the server's translations in the specified
+     * folder, so that later starts do not have to parse the lang file again.<p>
+     *
+     * Vanilla lang files for other client locales, i.e. {@code de_de.json}, may be placed in the
+     * {@code lang} subfolder for use by {@link #toServerLocale(String, String)}.
+     *
+     * @param dataFolder folder to keep the snapshot and lang files in, or null to use neither
+     */
+    public LocaleManager(final File dataFolder) {
+        this(dataFolder, null);
+    }
+
+    /**
+     * Create a manager whose server translations are loaded by the specified executor, so that
+     * reading the lang file does not hold up the calling thread.<p>
+     *
+     * All methods that send messages or query keys work immediately. Until {@link #whenReady()}
+     * completes, {@link #toServerLocale(String)} returns {@code <none>} as it does for unknown keys.
+     *
+     * @param dataFolder folder to keep the snapshot and lang files in, or null to use neither
+     * @param executor executor to load the translations with, or null to load them right away
+     */
+    public LocaleManager(final File dataFolder, final Executor executor) {
+        capabilities = ServerCapabilities.detect(Bukkit.getServer());
+        oldVersion = capabilities.isBelow113();
+        componentsEnabled = capabilities.hasComponentApi();
+        final String version = capabilities.getCraftBukkitVersion();
+        if (version == null) {
+            // Bukkit version is 1.20.5+
+            craftMagicNumbers = findClass("org.bukkit.craftbukkit.util.CraftMagicNumbers");
+            itemClazz = findClass("net.minecraft.world.item.Item");
+        } else {
+            craftMagicNumbers = findClass("org.bukkit.craftbukkit.{v}.util.CraftMagicNumbers".replace("{v}", version));
+            itemClazz = findClass(capabilities.hasRepackagedNms() ? "net.minecraft.world.item.Item"
+                    : "net.minecraft.server.{v}.Item".replace("{v}", version));
         }
-        if (Material.getMaterial("AMETHYST_CLUSTER") != null) {
-            // Bukkit version is 1.17+
-            hasRepackagedNms = true;
+        final MethodHandle[] itemHandles = oldVersion ? null : resolveItemHandles(craftMagicNumbers, itemClazz);
+        getItemHandle = itemHandles != null ? itemHandles[0] : null;
+        descriptionIdHandle = itemHandles != null ? itemHandles[1] : null;
+        materialKeys = buildMaterialKeys();
+        legacyMaterialKeys = buildLegacyMaterialKeys();
+        legacyPotionKeys = buildLegacyPotionKeys();
+        potionMaterials = buildPotionMaterials();
+        potionSuffixes = buildPotionSuffixes();
+        potionMaterialSlots = new int[Material.values().length];
+        Arrays.fill(potionMaterialSlots, -1);
+        int slot = 0;
+        for (final Material material : potionMaterials) {
+            potionMaterialSlots[material.ordinal()] = slot++;
         }
-        if (Material.getMaterial("MUSIC_DISC_OTHERSIDE") != null) {
-            // Bukkit version is 1.18+ (for NMS Item#getName)
-            isPost1dot18 = true;
+        potionKeyCache = new String[slot * PotionType.values().length];
+        entityKeys = buildEntityKeys();
+        entityVariants = buildEntityVariants();
+        enchantmentKeys = buildEnchantmentKeys();
+        localeDictionaries = new LocaleDictionaries(dataFolder != null ? new File(dataFolder, "lang") : null,
+                MAX_RESIDENT_LOCALES);
+        final File snapshotFile = dataFolder != null ? new File(dataFolder, "translations.bin") : null;
+        if (executor != null) {
+            executor.execute(() -> loadTranslations(snapshotFile));
+        } else {
+            loadTranslations(snapshotFile);
         }
-        final String packageName = Bukkit.getServer().getClass().getPackage().getName();
+    }
+
+    private static Class<?> findClass(final String name) {
         try {
-            if (packageName.equals("org.bukkit.craftbukkit")) {
-                // Bukkit version is 1.20.5+
-                craftMagicNumbers = Class.forName("org.bukkit.craftbukkit.util.CraftMagicNumbers");
-                itemClazz = Class.forName("net.minecraft.world.item.Item");
-            } else {
-                final String version = packageName.split("\\.")[3];
-                craftMagicNumbers = Class.forName("org.bukkit.craftbukkit.{v}.util.CraftMagicNumbers".replace("{v}",
-                        version));
-                if (hasRepackagedNms) {
-                    itemClazz = Class.forName("net.minecraft.world.item.Item");
-                } else {
-                    itemClazz = Class.forName("net.minecraft.server.{v}.Item".replace("{v}", version));
-                }
-            }
+            return Class.forName(name);
         } catch (final ClassNotFoundException e) {
             e.printStackTrace();
+            return null;
         }
+    }
+
+    private void loadTranslations(final File snapshotFile) {
         try {
-            englishTranslations = LocaleKeys.loadTranslations();
+            englishTranslations = LocaleKeys.loadTranslations(snapshotFile);
         } catch (IOException e) {
             e.printStackTrace();
+        } finally {
+            ready.complete(this);
         }
     }
 
@@ -117,25 +228,7 @@ public class LocaleManager{
         if (player == null || itemStack == null) {
             return false;
         }
-        final String convertedMessage = localeParser.convertFormattingTokens(message);
-        if (!hasBasePotionData && itemStack.getType().equals(Material.POTION)) {
-            final Potion potion = Potion.fromItemStack(itemStack);
-            String msg = convertedMessage;
-            String prefixKey = null;
-            if (potion.isSplash()) {
-                prefixKey = "potion.prefix.grenade";
-            }
-            String potionName = "item.potion.name";
-            if (potion.getType().getEffectType() != null) {
-                potionName = oldPotions1dot8.get(potion.getType().getEffectType().getName());
-            }
-            final String json = localeParser.buildTellrawJson(msg, new String[]{"<prefix>", "<item>"},
-                    new String[]{prefixKey, potionName});
-            Bukkit.dispatchCommand(Bukkit.getConsoleSender(), "tellraw " + formatName(player) + " " + json);
-            return true;
-        }
-        return sendMessage(player, message, itemStack.getType(), itemStack.getDurability(), itemStack.getEnchantments(),
-                itemStack.getItemMeta());
+        return deliver(Collections.singletonList(player), itemPayload(message, itemStack));
     }
 
     /**
@@ -157,43 +250,12 @@ public class LocaleManager{
      * @param meta ItemMeta for the item being translated
      */
     public boolean sendMessage(final Player player, final String message, final Material material, final short durability,
-           Map<Enchantment, Integer> enchantments, final ItemMeta meta) {
+           final Map<Enchantment, Integer> enchantments, final ItemMeta meta) {
         if (player == null || material == null) {
             return false;
         }
-        final String convertedMessage = localeParser.convertFormattingTokens(message);
-        String matKey;
-        try {
-            matKey = queryMaterial(material, durability, meta);
-        } catch (final Exception ex) {
-            Bukkit.getLogger().severe("[LocaleLib] Unable to query Material: " + material.name());
-            ex.printStackTrace();
-            return false;
-        }
-        if (meta instanceof EnchantmentStorageMeta) {
-            enchantments = ((EnchantmentStorageMeta)meta).getStoredEnchants();
-        }
-        final Collection<String> enchantKeys = queryEnchantments(enchantments).values();
-        final Collection<String> lvlKeys = queryLevels(enchantments).values();
-        final int totalPlaceholders = 1 + enchantKeys.size() + lvlKeys.size();
-        final String[] placeholders = new String[totalPlaceholders];
-        final String[] translateKeys = new String[totalPlaceholders];
-        placeholders[0] = "<item>";
-        translateKeys[0] = matKey;
-        int idx = 1;
-        for (final String ek : enchantKeys) {
-            placeholders[idx] = "<enchantment>";
-            translateKeys[idx] = ek;
-            idx++;
-        }
-        for (final String lk : lvlKeys) {
-            placeholders[idx] = "<level>";
-            translateKeys[idx] = lk;
-            idx++;
-        }
-        final String json = localeParser.buildTellrawJson(convertedMessage, placeholders, translateKeys);
-        Bukkit.dispatchCommand(Bukkit.getConsoleSender(), "tellraw " + formatName(player) + " " + json);
-        return true;
+        return deliver(Collections.singletonList(player), materialPayload(message, material, durability, enchantments,
+                meta));
     }
 
     /**
@@ -233,26 +295,8 @@ public class LocaleManager{
         if (player == null || message == null || enchantments == null) {
             return false;
         }
-        final String convertedMessage = localeParser.convertFormattingTokens(message);
-        final Collection<String> enchantKeys = queryEnchantments(enchantments).values();
-        final Collection<String> levelKeys = queryLevels(enchantments).values();
-        if (!enchantKeys.isEmpty()) {
-            final int totalPlaceholders = enchantKeys.size() + levelKeys.size();
-            final String[] placeholders = new String[totalPlaceholders];
-            final String[] translateKeys = new String[totalPlaceholders];
-            int idx = 0;
-            for (final String ek : enchantKeys) {
-                placeholders[idx] = "<enchantment>";
-                translateKeys[idx] = ek;
-                idx++;
-            }
-            for (final String lk : levelKeys) {
-                placeholders[idx] = "<level>";
-                translateKeys[idx] = lk;
-                idx++;
-            }
-            final String json = localeParser.buildTellrawJson(convertedMessage, placeholders, translateKeys);
-            Bukkit.dispatchCommand(Bukkit.getConsoleSender(), "tellraw " + formatName(player) + " " + json);
+        if (!enchantments.isEmpty()) {
+            deliver(Collections.singletonList(player), enchantmentPayload(message, enchantments));
         }
         return true;
     }
@@ -273,13 +317,349 @@ public class LocaleManager{
         if (player == null || message == null || type == null) {
             return false;
         }
-        final String convertedMessage = localeParser.convertFormattingTokens(message);
+        return deliver(Collections.singletonList(player), entityPayload(message, type, extra));
+    }
+
+    /**
+     * Send message with item name translated to each recipient's locale.
+     * The message is built once and the same payload is delivered to every
+     * recipient. ItemStack is required. This method supports 1.8 potions.<p>
+     *
+     * Message should contain {@code <item>} string for replacement by
+     * this method (along with applicable {@code <enchantment>} and/or
+     * {@code <level>} strings).
+     *
+     * @param players The players whom the message is to be sent to
+     * @param message The message to be sent to the players
+     * @param itemStack The item to be translated
+     */
+    public boolean broadcast(final Collection<? extends Player> players, final String message,
+            final ItemStack itemStack) {
+        if (players == null || itemStack == null) {
+            return false;
+        }
+        return deliver(players, itemPayload(message, itemStack));
+    }
+
+    /**
+     * Send message with enchantments translated to each recipient's locale.
+     * The message is built once and the same payload is delivered to every
+     * recipient. Map of Enchantment+level is required.<p>
+     *
+     * Message should contain {@code <enchantment>} and/or {@code <level>}
+     * strings for replacement by this method.
+     *
+     * @param players The players whom the message is to be sent to
+     * @param message The message to be sent to the players
+     * @param enchantments Enchantments to be translated
+     */
+    public boolean broadcast(final Collection<? extends Player> players, final String message,
+            final Map<Enchantment, Integer> enchantments) {
+        if (players == null || message == null || enchantments == null) {
+            return false;
+        }
+        if (!enchantments.isEmpty()) {
+            deliver(players, enchantmentPayload(message, enchantments));
+        }
+        return true;
+    }
+
+    /**
+     * Send message with entity name translated to each recipient's locale.
+     * The message is built once and the same payload is delivered to every
+     * recipient. EntityType is required.<p>
+     *
+     * Message should contain {@code <mob>} string for replacement by
+     * this method.
+     *
+     * @param players The players whom the message is to be sent to
+     * @param message The message to be sent to the players
+     * @param type The entity type to be translated
+     * @param extra Career, Ocelot, Rabbit, or TropicalFish type if applicable
+     */
+    public boolean broadcast(final Collection<? extends Player> players, final String message, final EntityType type,
+            final String extra) {
+        if (players == null || message == null || type == null) {
+            return false;
+        }
+        return deliver(players, entityPayload(message, type, extra));
+    }
+
+    /**
+     * Build the payload of a message about an item, including 1.8 potions.
+     */
+    @SuppressWarnings("deprecation")
+    private Payload itemPayload(final String message, final ItemStack itemStack) {
+        if (!capabilities.hasBasePotionData() && itemStack.getType().equals(Material.POTION)) {
+            final long start = metrics.start();
+            final Potion potion = Potion.fromItemStack(itemStack);
+            String prefixKey = null;
+            if (potion.isSplash()) {
+                prefixKey = "potion.prefix.grenade";
+            }
+            String potionName = "item.potion.name";
+            if (potion.getType().getEffectType() != null) {
+                potionName = LocaleKeys.getSharedPotionKeys1dot8().get(potion.getType().getEffectType().getName());
+            }
+            final Payload payload = new Payload(compileMessage(message, POTION_PLACEHOLDERS),
+                    new String[]{prefixKey, potionName});
+            metrics.stop(LocaleMetrics.Stage.KEY_RESOLUTION, start);
+            metrics.countMessage(LocaleMetrics.MessageType.POTION_1_8);
+            return payload;
+        }
+        return materialPayload(message, itemStack.getType(), itemStack.getDurability(), itemStack.getEnchantments(),
+                itemStack.getItemMeta());
+    }
+
+    /**
+     * Build the payload of a message about an item and its enchantments.
+     *
+     * @return the payload, or null if the material could not be queried
+     */
+    private Payload materialPayload(final String message, final Material material, final short durability,
+            Map<Enchantment, Integer> enchantments, final ItemMeta meta) {
+        final long start = metrics.start();
+        final String matKey = tryQueryMaterial(material, durability, meta, true);
+        if (matKey == QUERY_FAILED) {
+            return null;
+        }
+        if (meta instanceof EnchantmentStorageMeta) {
+            enchantments = ((EnchantmentStorageMeta)meta).getStoredEnchants();
+        }
+        final Collection<Enchantment> enchants = enchantments != null ? enchantments.keySet()
+                : Collections.<Enchantment>emptySet();
+        final Collection<String> lvlKeys = queryLevels(enchantments).values();
+        final int totalPlaceholders = 1 + enchants.size() + lvlKeys.size();
+        final String[] placeholders = new String[totalPlaceholders];
+        final String[] translateKeys = new String[totalPlaceholders];
+        placeholders[0] = "<item>";
+        translateKeys[0] = matKey;
+        int idx = 1;
+        for (final Enchantment e : enchants) {
+            placeholders[idx] = "<enchantment>";
+            translateKeys[idx] = queryEnchantment(e);
+            idx++;
+        }
+        for (final String lk : lvlKeys) {
+            placeholders[idx] = "<level>";
+            translateKeys[idx] = lk;
+            idx++;
+        }
+        final Payload payload = new Payload(compileMessage(message, placeholders), translateKeys);
+        metrics.stop(LocaleMetrics.Stage.KEY_RESOLUTION, start);
+        metrics.countMessage(LocaleMetrics.MessageType.ITEM);
+        return payload;
+    }
+
+    /**
+     * Build the payload of a message about a non-empty map of enchantments.
+     */
+    private Payload enchantmentPayload(final String message, final Map<Enchantment, Integer> enchantments) {
+        final long start = metrics.start();
+        final Collection<String> levelKeys = queryLevels(enchantments).values();
+        final int totalPlaceholders = enchantments.size() + levelKeys.size();
+        final String[] placeholders = new String[totalPlaceholders];
+        final String[] translateKeys = new String[totalPlaceholders];
+        int idx = 0;
+        for (final Enchantment e : enchantments.keySet()) {
+            placeholders[idx] = "<enchantment>";
+            translateKeys[idx] = queryEnchantment(e);
+            idx++;
+        }
+        for (final String lk : levelKeys) {
+            placeholders[idx] = "<level>";
+            translateKeys[idx] = lk;
+            idx++;
+        }
+        final Payload payload = new Payload(compileMessage(message, placeholders), translateKeys);
+        metrics.stop(LocaleMetrics.Stage.KEY_RESOLUTION, start);
+        metrics.countMessage(LocaleMetrics.MessageType.ENCHANTMENT);
+        return payload;
+    }
+
+    /**
+     * Build the payload of a message about an entity type.
+     */
+    private Payload entityPayload(final String message, final EntityType type, final String extra) {
+        final long start = metrics.start();
         final String key = queryEntityType(type, extra);
-        final String json = localeParser.buildTellrawJson(convertedMessage, new String[]{"<mob>"}, new String[]{key});
-        Bukkit.dispatchCommand(Bukkit.getConsoleSender(), "tellraw " + formatName(player) + " " + json);
+        final Payload payload = new Payload(compileMessage(message, MOB_PLACEHOLDERS), new String[]{key});
+        metrics.stop(LocaleMetrics.Stage.KEY_RESOLUTION, start);
+        metrics.countMessage(LocaleMetrics.MessageType.ENTITY);
+        return payload;
+    }
+
+    /**
+     * Send a payload to players. Components are handed straight to each player where the server
+     * supports them, otherwise the message is sent through the tellraw command, as a single
+     * command for everyone if the recipients are exactly the online players.
+     *
+     * @param players the players whom the message is to be sent to
+     * @param payload the payload, or null if it could not be built
+     * @return false if the payload is null
+     */
+    private boolean deliver(final Collection<? extends Player> players, final Payload payload) {
+        if (payload == null) {
+            return false;
+        }
+        if (players.isEmpty()) {
+            return true;
+        }
+        if (componentsEnabled) {
+            final long start = metrics.start();
+            try {
+                if (ComponentSender.send(players, payload.message, payload.translateKeys)) {
+                    metrics.stop(LocaleMetrics.Stage.DISPATCH, start);
+                    metrics.countDelivery(true, players.size());
+                    return true;
+                }
+            } catch (final UnsupportedOperationException ex) {
+                // Player.Spigot is not implemented, i.e. CraftBukkit
+                componentsEnabled = false;
+            }
+        }
+        long start = metrics.start();
+        final String json = payload.message.toJson(payload.translateKeys);
+        metrics.stop(LocaleMetrics.Stage.JSON_BUILD, start);
+        start = metrics.start();
+        if (players.size() > 1 && isEveryoneOnline(players)) {
+            Bukkit.dispatchCommand(Bukkit.getConsoleSender(), "tellraw @a " + json);
+        } else {
+            for (final Player player : players) {
+                if (player != null) {
+                    Bukkit.dispatchCommand(Bukkit.getConsoleSender(), "tellraw " + formatName(player) + " " + json);
+                }
+            }
+        }
+        metrics.stop(LocaleMetrics.Stage.DISPATCH, start);
+        metrics.countDelivery(false, players.size());
         return true;
     }
 
+    /**
+     * Checks whether the specified players are exactly the players currently online.
+     */
+    private static boolean isEveryoneOnline(final Collection<? extends Player> players) {
+        final Collection<? extends Player> online = Bukkit.getOnlinePlayers();
+        if (online.size() != players.size()) {
+            return false;
+        }
+        final Set<Player> remaining = Collections.newSetFromMap(new IdentityHashMap<>());
+        remaining.addAll(online);
+        for (final Player player : players) {
+            if (!remaining.remove(player)) {
+                return false;
+            }
+        }
+        return remaining.isEmpty();
+    }
+
+    /**
+     * A compiled message together with the translation keys of its placeholders.
+     */
+    private static final class Payload {
+        private final LocaleParser.CompiledMessage message;
+        private final String[] translateKeys;
+
+        private Payload(final LocaleParser.CompiledMessage message, final String[] translateKeys) {
+            this.message = message;
+            this.translateKeys = translateKeys;
+        }
+    }
+
+    /**
+     * Gets the compiled template of a raw message, compiling and caching it on first use.
+     *
+     * @param message the raw message containing formatting tokens and placeholder strings
+     * @param placeholders the placeholder strings to replace
+     * @return the compiled message
+     */
+    LocaleParser.CompiledMessage compileMessage(final String message, final String[] placeholders) {
+        final TemplateKey templateKey = new TemplateKey(message, placeholders);
+        LocaleParser.CompiledMessage compiled = messageCache.get(templateKey);
+        metrics.countLookup(LocaleMetrics.Cache.TEMPLATES, compiled != null);
+        if (compiled == null) {
+            // Two threads may compile the same message at once, which is harmless as both results are equal
+            compiled = localeParser.compile(message, placeholders);
+            messageCache.put(templateKey, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * Least recently used cache of compiled messages, split into stripes by key hash. Each stripe
+     * is locked on its own, so threads sending different messages rarely wait on each other.
+     */
+    private static final class MessageCache {
+        private final LinkedHashMap<TemplateKey, LocaleParser.CompiledMessage>[] stripes;
+
+        @SuppressWarnings("unchecked")
+        private MessageCache(final int capacity, final int stripeCount) {
+            final int stripeCapacity = capacity / stripeCount;
+            stripes = new LinkedHashMap[stripeCount];
+            for (int i = 0; i < stripeCount; i++) {
+                stripes[i] = new LinkedHashMap<TemplateKey, LocaleParser.CompiledMessage>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(
+                            final Map.Entry<TemplateKey, LocaleParser.CompiledMessage> eldest) {
+                        return size() > stripeCapacity;
+                    }
+                };
+            }
+        }
+
+        private LinkedHashMap<TemplateKey, LocaleParser.CompiledMessage> stripe(final TemplateKey key) {
+            final int hash = key.hashCode();
+            return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+        }
+
+        private LocaleParser.CompiledMessage get(final TemplateKey key) {
+            final LinkedHashMap<TemplateKey, LocaleParser.CompiledMessage> stripe = stripe(key);
+            synchronized (stripe) {
+                return stripe.get(key);
+            }
+        }
+
+        private void put(final TemplateKey key, final LocaleParser.CompiledMessage compiled) {
+            final LinkedHashMap<TemplateKey, LocaleParser.CompiledMessage> stripe = stripe(key);
+            synchronized (stripe) {
+                stripe.put(key, compiled);
+            }
+        }
+    }
+
+    /**
+     * Cache key of a compiled message, made of the raw message and its placeholder layout.
+     */
+    private static final class TemplateKey {
+        private final String message;
+        private final String[] placeholders;
+        private final int hash;
+
+        private TemplateKey(final String message, final String[] placeholders) {
+            this.message = message;
+            this.placeholders = placeholders;
+            this.hash = 31 * message.hashCode() + Arrays.hashCode(placeholders);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TemplateKey)) {
+                return false;
+            }
+            final TemplateKey other = (TemplateKey) o;
+            return hash == other.hash && message.equals(other.message) && Arrays.equals(placeholders, other.placeholders);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
     /**
      * Gets the key name of the specified entity as it would appear in a Minecraft lang file.
      *
@@ -291,26 +671,32 @@ public class LocaleManager{
         if (entity == null) {
             throw new IllegalArgumentException("[LocaleLib] Entity cannot be null");
         }
-        String extra = null;
+        Object variant = null;
         if (entity instanceof Villager) {
             Villager villager = (Villager) entity;
-            extra = villager.getProfession().name();
+            variant = villager.getProfession();
         } else if (entity instanceof Ocelot) {
             Ocelot ocelot = (Ocelot) entity;
-            extra = ocelot.getCatType().name();
+            variant = ocelot.getCatType();
         } else if (entity instanceof Rabbit) {
             Rabbit rabbit = (Rabbit) entity;
-            if (rabbit.getRabbitType().equals(Rabbit.Type.THE_KILLER_BUNNY)) { // Only type with translation
-                extra = rabbit.getRabbitType().name();
-            }
+            variant = rabbit.getRabbitType();
         }
         if (!oldVersion) {
             if (entity instanceof TropicalFish) {
                 TropicalFish tropicalFish = (TropicalFish) entity;
-                extra = tropicalFish.getPattern().name();
+                variant = tropicalFish.getPattern();
+            }
+        }
+        String key = entityKeys.get(entity.getType());
+        final EntityVariants variants = entityVariants.get(entity.getType());
+        if (variants != null && variant != null) {
+            final String variantKey = variants.get(variant);
+            if (variantKey != null) {
+                key = variantKey;
             }
         }
-        return queryEntityType(entity.getType(), extra);
+        return key;
     }
 
     /**
@@ -326,80 +712,226 @@ public class LocaleManager{
         if (entityType == null) {
             throw new IllegalArgumentException("[LocaleLib] EntityType cannot be null");
         }
-        String key = "";
-        if (oldVersion) {
-            if (entityType.name().equals("VILLAGER") && extra != null && Profession.valueOf(extra) != null) {
-                key = oldEntities.get(entityType.name() + "." + Profession.valueOf(extra).name());
-            } else if (entityType.name().equals("OCELOT") && extra != null && Ocelot.Type.valueOf(extra) != null) {
-                key = oldEntities.get(entityType.name() + "." + Ocelot.Type.valueOf(extra).name());
-            } else if (entityType.name().equals("RABBIT") && extra != null && Rabbit.Type.valueOf(extra) != null
-                    && Rabbit.Type.valueOf(extra).equals(Rabbit.Type.THE_KILLER_BUNNY)) {
-                key = oldEntities.get(entityType.name() + "." + Rabbit.Type.valueOf(extra).name());
-            } else {
-                key = oldEntities.get(entityType.name());
-            }
-        } else {
-            if (entityType.name().equals("MUSHROOM_COW")) {
-                key = "entity.minecraft.mooshroom";
-            } else if (entityType.name().equals("SNOWMAN")) {
-                key = "entity.minecraft.snow_golem";
-            } else if (entityType.name().equals("PIG_ZOMBIE")) {
-                key = "entity.minecraft.zombie_pigman";
-            } else if (entityType.name().equals("VILLAGER") && extra != null && Profession.valueOf(extra) != null) {
-                key = "entity.minecraft.villager." + Profession.valueOf(extra).name();
-            } else if (entityType.name().equals("RABBIT") && extra != null && Rabbit.Type.valueOf(extra) != null
-                    && Rabbit.Type.valueOf(extra).equals(Rabbit.Type.THE_KILLER_BUNNY)) {
-                key = "entity.minecraft.killer_bunny";
-            } else if (entityType.name().equals("TROPICAL_FISH") && extra != null) {
-                if (TropicalFish.Pattern.valueOf(extra) != null) {
-                    key = "entity.minecraft.tropical_fish.type." + TropicalFish.Pattern.valueOf(extra);
-                } else {
-                    try {
-                        int value = Integer.parseInt(extra);
-                        if (value >= 0 && value < 22) {
-                            key = "entity.minecraft.tropical_fish.predefined." + extra;
-                        }
-                    } catch (NumberFormatException nfe) {
-                        // Do nothing
-                    }
+        String key = entityKeys.get(entityType);
+        if (extra != null) {
+            final EntityVariants variants = entityVariants.get(entityType);
+            if (variants != null) {
+                final String variantKey = variants.get(extra);
+                if (variantKey != null) {
+                    key = variantKey;
                 }
-            } else {
-                key = "entity.minecraft." + entityType.toString().toLowerCase();
             }
         }
         return key;
     }
 
     /**
-     * Gets the key name of the specified item as it would appear in a Minecraft lang file.
+     * Gets the key name of the specified entity type as it would appear in a Minecraft lang file,
+     * without throwing if it cannot be found. Extra data is optional and may be left null or empty.
      *
-     * @param itemStack the item to check
-     * @return the raw key
-     * @throws IllegalArgumentException if specified item parameter is null
+     * @param entityType the entity type to check
+     * @param extra the extra data to check, i.e. name of Profession
+     * @return the raw key, or null if the entity type is null, the extra data names no variant of it,
+     * or it has no key
      */
-    @SuppressWarnings("deprecation")
-    public String queryItemStack(final ItemStack itemStack) throws IllegalArgumentException {
-        if (itemStack == null) {
-            throw new IllegalArgumentException("[LocaleLib] ItemStack cannot be null");
+    public String tryQueryEntityType(final EntityType entityType, final String extra) {
+        if (entityType == null) {
+            return null;
         }
-        return queryMaterial(itemStack.getType(), itemStack.getDurability(), itemStack.getItemMeta());
+        if (extra != null) {
+            final EntityVariants variants = entityVariants.get(entityType);
+            if (variants != null && !variants.accepts(extra)) {
+                return null;
+            }
+        }
+        return queryEntityType(entityType, extra);
     }
 
     /**
-     * Gets the key name of the specified material as it would appear in a Minecraft lang file.
+     * Build the key of every entity type, applying legacy names or modern renames as needed.
      *
-     * @param material the material to check
-     * @return the raw key
-     * @throws IllegalArgumentException if an item with that material could not be found
+     * @return a table that is never modified once returned
      */
-    public String queryMaterial(final Material material) throws IllegalArgumentException {
-        return queryMaterial(material, (short) 0, null);
+    private EnumMap<EntityType, String> buildEntityKeys() {
+        final EnumMap<EntityType, String> keys = new EnumMap<>(EntityType.class);
+        if (oldVersion) {
+            final Map<String, String> oldEntities = LocaleKeys.getSharedEntityKeys();
+            for (final EntityType type : EntityType.values()) {
+                final String key = oldEntities.get(type.name());
+                if (key != null) {
+                    keys.put(type, key);
+                }
+            }
+        } else {
+            final Map<String, String> renamed = LocaleKeys.getRenamedEntityKeys();
+            for (final EntityType type : EntityType.values()) {
+                final String key = renamed.get(type.name());
+                keys.put(type, key != null ? key : "entity.minecraft." + type.name().toLowerCase());
+            }
+        }
+        return keys;
     }
 
     /**
-     * Gets the key name of the specified material as it would appear in a Minecraft lang file.
+     * Build the variant keys (profession, cat type, etc.) of entity types which have them.
      *
-     * @param material the material to check
+     * @return a table that is never modified once returned
+     */
+    private EnumMap<EntityType, EntityVariants> buildEntityVariants() {
+        final EnumMap<EntityType, EntityVariants> variants = new EnumMap<>(EntityType.class);
+        if (oldVersion) {
+            final Map<String, String> oldEntities = LocaleKeys.getSharedEntityKeys();
+            putVariants(variants, "VILLAGER", () -> EntityVariants.of(Profession.class,
+                    p -> oldEntities.get("VILLAGER." + p), null));
+            putVariants(variants, "OCELOT", () -> EntityVariants.of(Ocelot.Type.class,
+                    t -> oldEntities.getOrDefault("OCELOT." + t, oldEntities.get(t)), null));
+            putVariants(variants, "RABBIT", () -> EntityVariants.of(Rabbit.Type.class,
+                    t -> t.equals("THE_KILLER_BUNNY") ? oldEntities.get("RABBIT." + t) : null, null));
+        } else {
+            putVariants(variants, "VILLAGER", () -> EntityVariants.of(Profession.class,
+                    p -> "entity.minecraft.villager." + p, null));
+            putVariants(variants, "RABBIT", () -> EntityVariants.of(Rabbit.Type.class,
+                    t -> t.equals("THE_KILLER_BUNNY") ? "entity.minecraft.killer_bunny" : null, null));
+            final String[] predefined = new String[22];
+            for (int i = 0; i < predefined.length; i++) {
+                predefined[i] = "entity.minecraft.tropical_fish.predefined." + i;
+            }
+            putVariants(variants, "TROPICAL_FISH", () -> EntityVariants.of(TropicalFish.Pattern.class,
+                    p -> "entity.minecraft.tropical_fish.type." + p, predefined));
+        }
+        return variants;
+    }
+
+    private static void putVariants(final Map<EntityType, EntityVariants> variants, final String typeName,
+            final Supplier<EntityVariants> supplier) {
+        try {
+            final EntityVariants entityVariants = supplier.get();
+            if (entityVariants != null) {
+                variants.put(EntityType.valueOf(typeName), entityVariants);
+            }
+        } catch (final IllegalArgumentException | LinkageError ex) {
+            // Entity type or variant class is absent on this server version
+        }
+    }
+
+    /**
+     * Variant keys of a single entity type, by variant name.<p>
+     *
+     * Variants are read from the public constants of their class rather than as enum constants,
+     * since some, i.e. Profession as of 1.21, are no longer enums.
+     */
+    private static final class EntityVariants {
+        private final Map<String, String> keys;
+        private final String[] numberedKeys;
+
+        private EntityVariants(final Map<String, String> keys, final String[] numberedKeys) {
+            this.keys = keys;
+            this.numberedKeys = numberedKeys;
+        }
+
+        /**
+         * Build the variant keys of a variant class.
+         *
+         * @param type the variant class, i.e. Profession
+         * @param keyFunction function from variant name to key, which may return null
+         * @param numberedKeys keys of variants referred to by number, or null
+         * @return the variant keys, or null if the class declares no variants
+         */
+        private static EntityVariants of(final Class<?> type, final Function<String, String> keyFunction,
+                final String[] numberedKeys) {
+            final Map<String, String> keys = new HashMap<>();
+            for (final Field field : type.getFields()) {
+                if (Modifier.isStatic(field.getModifiers()) && field.getType() == type) {
+                    keys.put(field.getName(), keyFunction.apply(field.getName()));
+                }
+            }
+            return keys.isEmpty() ? null : new EntityVariants(keys, numberedKeys);
+        }
+
+        /**
+         * Gets the name of a variant as returned by the server, which may be an enum constant or,
+         * on newer versions, a keyed registry entry.
+         *
+         * @param variant the variant
+         * @return the upper case variant name
+         */
+        private static String nameOf(final Object variant) {
+            if (variant instanceof Enum) {
+                return ((Enum<?>) variant).name();
+            }
+            if (variant instanceof Keyed) {
+                return ((Keyed) variant).getKey().getKey().toUpperCase(Locale.ROOT);
+            }
+            return String.valueOf(variant).toUpperCase(Locale.ROOT);
+        }
+
+        /**
+         * Gets the key for the variant with the specified name, or number if applicable.
+         *
+         * @param extra the variant name
+         * @return the variant key, or null if the variant has none
+         * @throws IllegalArgumentException if no variant has that name
+         */
+        private String get(final String extra) throws IllegalArgumentException {
+            if (keys.containsKey(extra)) {
+                return keys.get(extra);
+            }
+            if (numberedKeys == null) {
+                throw new IllegalArgumentException("[LocaleLib] Unknown entity variant: " + extra);
+            }
+            try {
+                final int value = Integer.parseInt(extra);
+                return value >= 0 && value < numberedKeys.length ? numberedKeys[value] : null;
+            } catch (final NumberFormatException nfe) {
+                return null;
+            }
+        }
+
+        /**
+         * Checks whether {@link #get(String)} would succeed for the specified extra data.
+         *
+         * @param extra the variant name
+         * @return true if the name is known or numbered variants apply
+         */
+        private boolean accepts(final String extra) {
+            return numberedKeys != null || keys.containsKey(extra);
+        }
+
+        private String get(final Object variant) {
+            return keys.get(nameOf(variant));
+        }
+    }
+
+    /**
+     * Gets the key name of the specified item as it would appear in a Minecraft lang file.
+     *
+     * @param itemStack the item to check
+     * @return the raw key
+     * @throws IllegalArgumentException if specified item parameter is null
+     */
+    @SuppressWarnings("deprecation")
+    public String queryItemStack(final ItemStack itemStack) throws IllegalArgumentException {
+        if (itemStack == null) {
+            throw new IllegalArgumentException("[LocaleLib] ItemStack cannot be null");
+        }
+        return queryMaterial(itemStack.getType(), itemStack.getDurability(), itemStack.getItemMeta());
+    }
+
+    /**
+     * Gets the key name of the specified material as it would appear in a Minecraft lang file.
+     *
+     * @param material the material to check
+     * @return the raw key
+     * @throws IllegalArgumentException if an item with that material could not be found
+     */
+    public String queryMaterial(final Material material) throws IllegalArgumentException {
+        return queryMaterial(material, (short) 0, null);
+    }
+
+    /**
+     * Gets the key name of the specified material as it would appear in a Minecraft lang file.
+     *
+     * @param material the material to check
      * @param durability the durability to check
      * @param meta the item metadata to check
      * @return the raw key
@@ -413,65 +945,459 @@ public class LocaleManager{
         }
         String matKey = "";
         if (oldVersion) {
+            final String[] slots = legacyMaterialKeys.get(material);
             if (material.isBlock()) {
-                if (durability >= 0 && oldBlocks.containsKey(material.name() + "." + durability)) {
-                    matKey = oldBlocks.get(material.name() + "." + durability);
-                } else if (oldBlocks.containsKey(material.name())) {
-                    matKey = oldBlocks.get(material.name());
-                } else {
+                matKey = getLegacyKey(slots, durability);
+                if (matKey == null) {
                     throw new IllegalArgumentException("[LocaleLib] Block not found: " + material.name() + "." + durability);
                 }
+            } else if (durability >= 0 && potionMaterials.contains(material)) {
+                if (capabilities.hasBasePotionData()) {
+                    // Items without potion meta default to an uncraftable potion
+                    matKey = queryPotionKey(material, meta instanceof PotionMeta
+                            ? ((PotionMeta)meta).getBasePotionData().getType() : PotionType.UNCRAFTABLE);
+                }
             } else {
-                final ItemStack i = new ItemStack(material, 1, durability);
-                i.setItemMeta(meta);
-                if (durability >= 0 && i.getItemMeta() instanceof PotionMeta) {
-                    if (hasBasePotionData) {
-                        if (material.equals(Material.POTION)) {
-                            matKey = oldPotions.get(((PotionMeta)i.getItemMeta()).getBasePotionData().getType().name());
-                        } else if (material.equals(Material.LINGERING_POTION)) {
-                            matKey = oldLingeringPotions.get(((PotionMeta)i.getItemMeta()).getBasePotionData().getType().name());
-                        } else if (material.equals(Material.SPLASH_POTION)) {
-                            matKey = oldSplashPotions.get(((PotionMeta)i.getItemMeta()).getBasePotionData().getType().name());
-                        }
-                    }
-                } else if (durability >= 0 && oldItems.containsKey(material.name() + "." + durability)) {
-                    matKey = oldItems.get(material.name() + "." + durability);
-                } else if (oldItems.containsKey(material.name())) {
-                    matKey = oldItems.get(material.name());
-                } else {
+                matKey = getLegacyKey(slots, durability);
+                if (matKey == null) {
                     throw new IllegalArgumentException("[LocaleLib] Item not found: " + material.name() + "." + durability);
                 }
             }
+        } else if (meta instanceof PotionMeta) {
+            final PotionType potionType;
+            try {
+                potionType = ((PotionMeta)meta).getBasePotionData().getType();
+            } catch (final Exception ex) {
+                throw new IllegalArgumentException("[LocaleLib] Unable to query Material: " + material.name(), ex);
+            }
+            matKey = queryPotionKey(material, potionType);
         } else {
-            if (material.isBlock() && material.createBlockData() instanceof Ageable) {
-                matKey = "block.minecraft." + material.name().toLowerCase();
+            matKey = materialKeys.get(material);
+            if (matKey == null) {
+                matKey = queryBaseKey(material);
+            }
+        }
+        return matKey;
+    }
+
+    /**
+     * Gets the key of a potion item, caching it by material and potion type so that each pair is
+     * only built once. Materials that do not normally carry potion meta are not cached.
+     *
+     * @param material the material to check
+     * @param potionType the base potion type
+     * @return the raw key, or null if a 1.9-1.12 potion type has none
+     * @throws IllegalArgumentException if the item cannot be found
+     */
+    private String queryPotionKey(final Material material, final PotionType potionType)
+            throws IllegalArgumentException {
+        if (potionType == null) {
+            throw new IllegalArgumentException("[LocaleLib] Unable to query Material: " + material.name()
+                    + " (no base potion type)");
+        }
+        final int slot = potionMaterialSlots[material.ordinal()];
+        final int index = slot * potionSuffixes.size() + potionType.ordinal();
+        String key = slot >= 0 ? potionKeyCache[index] : null;
+        if (key == null) {
+            if (oldVersion) {
+                final Map<String, String> potionKeys = legacyPotionKeys.get(material);
+                key = potionKeys != null ? potionKeys.get(potionType.name()) : "";
             } else {
+                final String baseKey = materialKeys.get(material);
+                key = (baseKey != null ? baseKey : queryBaseKey(material)) + potionSuffixes.get(potionType);
+            }
+            if (slot >= 0) {
+                // Racing threads store equal strings, which are safe to publish without a lock
+                potionKeyCache[index] = key;
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Build the 1.13+ lang file suffix of every potion type, i.e. {@code .effect.swiftness}
+     * for {@link PotionType#SPEED}.
+     *
+     * @return a table that is never modified once returned
+     */
+    private static EnumMap<PotionType, String> buildPotionSuffixes() {
+        final EnumMap<PotionType, String> suffixes = new EnumMap<>(PotionType.class);
+        for (final PotionType type : PotionType.values()) {
+            String effect = type.name().toLowerCase().replace("speed", "swiftness").replace("jump", "leaping")
+                    .replace("instant_heal", "healing").replace("instant_damage", "harming");
+            if (!effect.contains("regeneration")) {
+                effect = effect.replace("regen", "regeneration");
+            }
+            suffixes.put(type, ".effect." + effect);
+        }
+        return suffixes;
+    }
+
+    /**
+     * Gets the key name of the specified item as it would appear in a Minecraft lang file,
+     * without throwing if it cannot be found.
+     *
+     * @param itemStack the item to check
+     * @return the raw key, or null if the item is null or could not be found
+     */
+    @SuppressWarnings("deprecation")
+    public String tryQueryItemStack(final ItemStack itemStack) {
+        if (itemStack == null) {
+            return null;
+        }
+        return tryQueryMaterial(itemStack.getType(), itemStack.getDurability(), itemStack.getItemMeta());
+    }
+
+    /**
+     * Gets the key name of the specified material as it would appear in a Minecraft lang file,
+     * without throwing if it cannot be found.
+     *
+     * @param material the material to check
+     * @return the raw key, or null if the material is null or could not be found
+     */
+    public String tryQueryMaterial(final Material material) {
+        return tryQueryMaterial(material, (short) 0, null);
+    }
+
+    /**
+     * Gets the key name of the specified material as it would appear in a Minecraft lang file,
+     * without throwing if it cannot be found. Failures are remembered, so repeated queries for
+     * an unknown material are answered from a cache.
+     *
+     * @param material the material to check
+     * @param durability the durability to check
+     * @param meta the item metadata to check
+     * @return the raw key, or null if the material is null or could not be found
+     */
+    public String tryQueryMaterial(final Material material, final short durability, final ItemMeta meta) {
+        final String key = tryQueryMaterial(material, durability, meta, false);
+        return key != QUERY_FAILED ? key : null;
+    }
+
+    /**
+     * Gets the key name of a material, answering repeated failures from the negative cache.
+     *
+     * @param report whether to count and log a failure
+     * @return the raw key, or {@link #QUERY_FAILED} if the material is null or could not be found
+     */
+    private String tryQueryMaterial(final Material material, final short durability, final ItemMeta meta,
+            final boolean report) {
+        String failure;
+        if (material == null) {
+            failure = "[LocaleLib] Material cannot be null";
+        } else {
+            // Only the potion path reads the meta, and its result depends on the potion's contents,
+            // so those failures are not cached; everything else depends on material and durability
+            final boolean cacheable = !(meta instanceof PotionMeta);
+            final Long failureKey = (long) material.ordinal() << 16 | (durability & 0xFFFFL);
+            failure = cacheable ? failedQueries.get(failureKey) : null;
+            if (failure == null) {
                 try {
-                    final Method itemMethod = craftMagicNumbers.getDeclaredMethod("getItem", material.getClass());
-                    itemMethod.setAccessible(true);
-                    final Object item = itemMethod.invoke(craftMagicNumbers, material);
-                    if (item == null) {
-                        throw new IllegalArgumentException(material.name() + " material could not be queried!");
-                    }
-                    final Method keyMethod = resolveMethod(itemClazz, "getDescriptionId", "a", "getName", "j", "l");
-                    if (keyMethod == null) {
-                        throw new IllegalArgumentException("Could not get description ID for " + itemClazz.getName());
-                    }
-                    matKey = (String) keyMethod.invoke(item);
-                    if (meta instanceof PotionMeta) {
-                        matKey += ".effect." + ((PotionMeta)meta).getBasePotionData().getType().name().toLowerCase()
-                                .replace("speed", "swiftness").replace("jump", "leaping")
-                                .replace("instant_heal", "healing").replace("instant_damage", "harming");
-                        if (!matKey.contains("regeneration")) {
-                            matKey = matKey.replace("regen", "regeneration");
+                    return queryMaterial(material, durability, meta);
+                } catch (final RuntimeException ex) {
+                    failure = ex.getCause() != null ? ex.getMessage() + " (" + ex.getCause() + ")"
+                            : String.valueOf(ex.getMessage());
+                    if (cacheable) {
+                        if (failedQueries.size() >= MAX_FAILED_QUERIES) {
+                            failedQueries.clear();
                         }
+                        failedQueries.put(failureKey, failure);
                     }
-                } catch (final Exception ex) {
-                    throw new IllegalArgumentException("[LocaleLib] Unable to query Material: " + material.name(), ex);
                 }
             }
         }
-        return matKey;
+        if (report) {
+            metrics.countQueryFailure();
+            failureLog.record(failure);
+        }
+        return QUERY_FAILED;
+    }
+
+    /**
+     * Gets the key names of a batch of items, i.e. the contents of an inventory, as they would
+     * appear in a Minecraft lang file. Keys that were not resolved up front are resolved once per
+     * material, and item meta is only read from potions.
+     *
+     * @param itemStacks the items to check, which may contain null for empty slots
+     * @return the raw keys in the same order, with null for each null item
+     * @throws IllegalArgumentException if the specified array is null or an item cannot be found
+     */
+    @SuppressWarnings("deprecation")
+    public String[] queryItemStacks(final ItemStack[] itemStacks) throws IllegalArgumentException {
+        if (itemStacks == null) {
+            throw new IllegalArgumentException("[LocaleLib] ItemStack array cannot be null");
+        }
+        final String[] keys = new String[itemStacks.length];
+        Map<Material, String> misses = null;
+        for (int i = 0; i < itemStacks.length; i++) {
+            final ItemStack itemStack = itemStacks[i];
+            if (itemStack == null) {
+                continue;
+            }
+            final Material material = itemStack.getType();
+            if (potionMaterials.contains(material)) {
+                keys[i] = queryMaterial(material, itemStack.getDurability(), itemStack.getItemMeta());
+            } else if (oldVersion) {
+                // Legacy keys depend on durability, but are a plain table lookup
+                keys[i] = queryMaterial(material, itemStack.getDurability(), null);
+            } else {
+                String key = materialKeys.get(material);
+                if (key == null) {
+                    if (misses == null) {
+                        misses = new HashMap<>();
+                    }
+                    key = queryMissedMaterial(material, misses);
+                }
+                keys[i] = key;
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Gets the key names of a batch of materials as they would appear in a Minecraft lang file.
+     * Materials whose keys were not resolved up front are resolved once per batch.
+     *
+     * @param materials the materials to check
+     * @return the raw keys in iteration order
+     * @throws IllegalArgumentException if the specified collection or one of its materials is null,
+     * or an item cannot be found
+     */
+    public String[] queryMaterials(final Collection<Material> materials) throws IllegalArgumentException {
+        if (materials == null) {
+            throw new IllegalArgumentException("[LocaleLib] Material collection cannot be null");
+        }
+        final String[] keys = new String[materials.size()];
+        Map<Material, String> misses = null;
+        int i = 0;
+        for (final Material material : materials) {
+            if (material == null) {
+                throw new IllegalArgumentException("[LocaleLib] Material cannot be null");
+            }
+            String key = oldVersion ? null : materialKeys.get(material);
+            if (key == null) {
+                if (misses == null) {
+                    misses = new HashMap<>();
+                }
+                key = queryMissedMaterial(material, misses);
+            }
+            keys[i++] = key;
+        }
+        return keys;
+    }
+
+    /**
+     * Gets the key name of a material that missed the up-front table, without durability or meta,
+     * reusing keys resolved earlier in the same batch.
+     */
+    private String queryMissedMaterial(final Material material, final Map<Material, String> misses) {
+        String key = misses.get(material);
+        if (key == null) {
+            key = queryMaterial(material, (short) 0, null);
+            misses.put(material, key);
+        }
+        return key;
+    }
+
+    /**
+     * Gets the legacy key for a durability, or the default key of the material.
+     *
+     * @param slots default key followed by keys indexed by durability + 1, or null
+     * @param durability the durability to check
+     * @return the raw key, or null if none was found
+     */
+    private static String getLegacyKey(final String[] slots, final short durability) {
+        if (slots == null) {
+            return null;
+        }
+        if (durability >= 0 && durability + 1 < slots.length && slots[durability + 1] != null) {
+            return slots[durability + 1];
+        }
+        return slots[0];
+    }
+
+    /**
+     * Build the 1.8-1.12 block and item keys of every material, indexed by durability.
+     *
+     * @return a table that is never modified once returned
+     */
+    private EnumMap<Material, String[]> buildLegacyMaterialKeys() {
+        final EnumMap<Material, String[]> keys = new EnumMap<>(Material.class);
+        if (oldVersion) {
+            putLegacyKeys(keys, LocaleKeys.getSharedBlockKeys(), true);
+            putLegacyKeys(keys, LocaleKeys.getSharedItemKeys(), false);
+        }
+        return keys;
+    }
+
+    /**
+     * Copy {@code NAME} and {@code NAME.durability} entries of a legacy table into slot arrays,
+     * where slot 0 is the default key and slot d + 1 the key for durability d.
+     */
+    private static void putLegacyKeys(final EnumMap<Material, String[]> keys, final Map<String, String> table,
+            final boolean blocks) {
+        for (final Map.Entry<String, String> entry : table.entrySet()) {
+            final String name = entry.getKey();
+            final int dot = name.indexOf('.');
+            final Material material = Material.getMaterial(dot < 0 ? name : name.substring(0, dot));
+            if (material == null || material.isBlock() != blocks) {
+                continue;
+            }
+            int slot = 0;
+            if (dot >= 0) {
+                try {
+                    slot = Integer.parseInt(name.substring(dot + 1)) + 1;
+                } catch (final NumberFormatException e) {
+                    continue;
+                }
+                if (slot < 1 || slot > Short.MAX_VALUE + 1) {
+                    continue;
+                }
+            }
+            String[] slots = keys.get(material);
+            if (slots == null || slots.length <= slot) {
+                slots = slots == null ? new String[slot + 1] : Arrays.copyOf(slots, slot + 1);
+                keys.put(material, slots);
+            }
+            slots[slot] = entry.getValue();
+        }
+    }
+
+    /**
+     * Build the 1.9-1.12 potion keys of each potion material, by base potion type name.
+     *
+     * @return a table that is never modified once returned
+     */
+    private EnumMap<Material, Map<String, String>> buildLegacyPotionKeys() {
+        final EnumMap<Material, Map<String, String>> keys = new EnumMap<>(Material.class);
+        if (oldVersion && capabilities.hasBasePotionData()) {
+            keys.put(Material.POTION, LocaleKeys.getSharedPotionKeys());
+            keys.put(Material.SPLASH_POTION, LocaleKeys.getSharedSplashPotionKeys());
+            keys.put(Material.LINGERING_POTION, LocaleKeys.getSharedLingeringPotionKeys());
+        }
+        return keys;
+    }
+
+    /**
+     * Gets the materials whose items carry potion meta.
+     *
+     * @return a set that is never modified once returned
+     */
+    private EnumSet<Material> buildPotionMaterials() {
+        final EnumSet<Material> materials = EnumSet.noneOf(Material.class);
+        for (final String name : new String[]{"POTION", "SPLASH_POTION", "LINGERING_POTION", "TIPPED_ARROW"}) {
+            final Material material = Material.getMaterial(name);
+            if (material != null) {
+                materials.add(material);
+            }
+        }
+        return materials;
+    }
+
+    /**
+     * Gets the key name of the specified material without any potion suffix, resolving it through
+     * NMS. Only used for 1.13+ and only when the material is missing from the precomputed table.
+     *
+     * @param material the material to check
+     * @return the raw base key
+     * @throws IllegalArgumentException if the item cannot be found
+     */
+    private String queryBaseKey(final Material material) throws IllegalArgumentException {
+        if (material.isBlock() && material.createBlockData() instanceof Ageable) {
+            return "block.minecraft." + material.name().toLowerCase();
+        }
+        if (getItemHandle == null || descriptionIdHandle == null) {
+            throw new IllegalArgumentException("[LocaleLib] Unable to query Material: " + material.name()
+                    + " (NMS item methods were not resolved)");
+        }
+        final String key;
+        try {
+            final Object item = (Object) getItemHandle.invokeExact(material);
+            if (item == null) {
+                throw new IllegalArgumentException(material.name() + " material could not be queried!");
+            }
+            key = (String) descriptionIdHandle.invokeExact(item);
+        } catch (final Throwable ex) {
+            throw new IllegalArgumentException("[LocaleLib] Unable to query Material: " + material.name(), ex);
+        }
+        if (key == null) {
+            throw new IllegalArgumentException("[LocaleLib] Unable to query Material: " + material.name());
+        }
+        return key;
+    }
+
+    /**
+     * Resolve the base key of every modern material in parallel. Entries that fail or are not
+     * reached within {@link #MATERIAL_WARMUP_BUDGET_MS} are left out and resolved on demand.
+     *
+     * @return a table that is never modified once returned
+     */
+    private EnumMap<Material, String> buildMaterialKeys() {
+        final EnumMap<Material, String> keys = new EnumMap<>(Material.class);
+        if (oldVersion) {
+            return keys;
+        }
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MATERIAL_WARMUP_BUDGET_MS);
+        final Map<Material, String> resolved = new ConcurrentHashMap<>();
+        final AtomicBoolean timedOut = new AtomicBoolean();
+        Arrays.stream(Material.values()).parallel().filter(m -> !m.isLegacy()).forEach(m -> {
+            if (System.nanoTime() > deadline) {
+                timedOut.set(true);
+                return;
+            }
+            try {
+                resolved.put(m, queryBaseKey(m));
+            } catch (final RuntimeException ex) {
+                // Left for the on-demand path
+            }
+        });
+        if (timedOut.get()) {
+            Bukkit.getLogger().warning("[LocaleLib] Material key warm-up exceeded " + MATERIAL_WARMUP_BUDGET_MS
+                    + "ms, remaining keys will be resolved on demand");
+        }
+        keys.putAll(resolved);
+        return keys;
+    }
+
+    /**
+     * Resolve CraftMagicNumbers#getItem and the NMS Item description ID getter once, so that
+     * later queries only invoke the prebound handles.
+     *
+     * @return the getItem and description ID handles, or null if either could not be resolved
+     */
+    private static MethodHandle[] resolveItemHandles(final Class<?> craftMagicNumbers, final Class<?> itemClazz) {
+        if (craftMagicNumbers == null || itemClazz == null) {
+            Bukkit.getLogger().severe("[LocaleLib] CraftMagicNumbers or NMS Item class not found, item names will be"
+                    + " unavailable");
+            return null;
+        }
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        final MethodHandle getItemHandle;
+        try {
+            final Method itemMethod = craftMagicNumbers.getDeclaredMethod("getItem", Material.class);
+            itemMethod.setAccessible(true);
+            getItemHandle = lookup.unreflect(itemMethod).asType(MethodType.methodType(Object.class, Material.class));
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            Bukkit.getLogger().severe("[LocaleLib] Could not resolve " + craftMagicNumbers.getName()
+                    + "#getItem(Material), item names will be unavailable");
+            e.printStackTrace();
+            return null;
+        }
+        final Method keyMethod = resolveMethod(itemClazz, "getDescriptionId", "a", "getName", "j", "l");
+        if (keyMethod == null) {
+            Bukkit.getLogger().severe("[LocaleLib] Could not get description ID for " + itemClazz.getName()
+                    + ", item names will be unavailable");
+            return null;
+        }
+        try {
+            return new MethodHandle[]{getItemHandle,
+                    lookup.unreflect(keyMethod).asType(MethodType.methodType(String.class, Object.class))};
+        } catch (final IllegalAccessException | RuntimeException e) {
+            Bukkit.getLogger().severe("[LocaleLib] Could not access " + itemClazz.getName() + "#"
+                    + keyMethod.getName() + ", item names will be unavailable");
+            e.printStackTrace();
+            return null;
+        }
     }
 
     private static Method resolveMethod(Class<?> clazz, String... mappings) {
@@ -499,21 +1425,48 @@ public class LocaleManager{
         if (enchantments == null || enchantments.isEmpty()) {
             return enchantKeys;
         }
-        if (oldVersion) {
-            for (final Enchantment e : enchantments.keySet()) {
-                enchantKeys.put(e, "enchantment." + e.getName().toLowerCase().replace("_", ".")
-                    .replace("environmental", "all").replace("protection", "protect"));
-            }
-        } else {
-            for (final Enchantment e : enchantments.keySet()) {
-                final String str = e.toString();
-                enchantKeys.put(e, "enchantment.minecraft." + str.substring(str.indexOf(":") + 1,
-                        str.indexOf("]")).split(", ")[0]);
-            }
+        for (final Enchantment e : enchantments.keySet()) {
+            enchantKeys.put(e, queryEnchantment(e));
         }
         return enchantKeys;
     }
 
+    /**
+     * Gets the key name of the specified enchantment as it would appear in a Minecraft lang file.
+     *
+     * @param enchantment Enchantment to get the key of
+     * @return the raw key of the enchantment
+     */
+    private String queryEnchantment(final Enchantment enchantment) {
+        final String key = enchantmentKeys.get(enchantment);
+        return key != null ? key : buildEnchantmentKey(enchantment);
+    }
+
+    /**
+     * Build the key of every enchantment known to the server. Enchantments registered later
+     * are resolved on demand.
+     *
+     * @return a table that is never modified once returned
+     */
+    private Map<Enchantment, String> buildEnchantmentKeys() {
+        final Map<Enchantment, String> keys = new IdentityHashMap<>();
+        for (final Enchantment e : Enchantment.values()) {
+            if (e != null) {
+                keys.put(e, buildEnchantmentKey(e));
+            }
+        }
+        return keys;
+    }
+
+    @SuppressWarnings("deprecation")
+    private String buildEnchantmentKey(final Enchantment enchantment) {
+        if (oldVersion) {
+            return "enchantment." + enchantment.getName().toLowerCase().replace("_", ".")
+                    .replace("environmental", "all").replace("protection", "protect");
+        }
+        return "enchantment.minecraft." + enchantment.getKey().getKey();
+    }
+
     /**
      * Gets the key name of the specified enchantment levels as it would appear in a Minecraft lang file.
      *
@@ -531,6 +1484,26 @@ public class LocaleManager{
         return lvlKeys;
     }
 
+    /**
+     * Gets a future that completes with this manager once the server translations are loaded.
+     * Dependent code may be chained to it; note that it then runs on the loading thread, unless
+     * the translations were already loaded.
+     *
+     * @return the future
+     */
+    public CompletableFuture<LocaleManager> whenReady() {
+        return ready.thenApply(Function.identity());
+    }
+
+    /**
+     * Checks whether the server translations have been loaded.
+     *
+     * @return true if {@link #toServerLocale(String)} can be used
+     */
+    public boolean isReady() {
+        return ready.isDone();
+    }
+
     /**
      * Gets the display name of the specified material as it would appear in a Minecraft lang file.
      *
@@ -541,6 +1514,97 @@ public class LocaleManager{
         return englishTranslations.getOrDefault(key, "<none>");
     }
 
+    /**
+     * Gets the display name of the specified key as it would appear in the lang file of a client locale.
+     * Useful where the client cannot translate, such as item lore, scoreboards, signs or chat relays.<p>
+     *
+     * The lang file is loaded on first use from the {@code lang} subfolder of the folder the manager
+     * was created with. Keys or locales without a translation fall back to the server locale, as
+     * does a locale first used on the main thread until it is loaded in the background.
+     *
+     * @param key the raw key for the object name
+     * @param locale the client locale, i.e. {@code de_de}
+     * @return the display name of the specified key within the locale file
+     */
+    public String toServerLocale(final String key, final String locale) {
+        final String normalized = locale != null ? LocaleDictionaries.normalize(locale) : SERVER_LOCALE;
+        if (!normalized.equals(SERVER_LOCALE)) {
+            final Map<String, String> dictionary = localeDictionaries.get(normalized);
+            if (dictionary != null) {
+                final String name = dictionary.get(key);
+                if (name != null) {
+                    return name;
+                }
+            }
+        }
+        return toServerLocale(key);
+    }
+
+    /**
+     * Gets the display name of an item as it appears to the specified player, rendered server-side
+     * in the player's locale. A custom display name is returned as is.<p>
+     *
+     * Names are cached per locale, so that rendering a full inventory costs a lookup per item. Call
+     * {@link #registerListeners(Plugin)} to keep only the locales of online players cached.
+     *
+     * @param player the player whose locale to use, or null for the server locale
+     * @param itemStack the item to render the name of
+     * @return the display name
+     * @throws IllegalArgumentException if the specified item is null or could not be found
+     */
+    public String renderName(final Player player, final ItemStack itemStack) throws IllegalArgumentException {
+        if (itemStack == null) {
+            throw new IllegalArgumentException("[LocaleLib] ItemStack cannot be null");
+        }
+        final ItemMeta meta = itemStack.getItemMeta();
+        if (meta != null && meta.hasDisplayName()) {
+            return meta.getDisplayName();
+        }
+        final String key = queryMaterial(itemStack.getType(), itemStack.getDurability(), meta);
+        return renderedNames.get(player != null ? LocaleDictionaries.localeOf(player) : SERVER_LOCALE, key);
+    }
+
+    /**
+     * Register the listeners that load the locale of each joining player ahead of time, and drop
+     * the names rendered for locales that no online player uses anymore.
+     *
+     * @param plugin the plugin to register the listeners for
+     */
+    public void registerListeners(final Plugin plugin) {
+        LocaleListener.register(plugin, renderedNames, localeDictionaries);
+    }
+
+    /**
+     * Gets the counters and latency histograms of this manager. Recording is disabled until
+     * {@link LocaleMetrics#setEnabled(boolean)} is called.
+     *
+     * @return the metrics
+     */
+    public LocaleMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Load the dictionary of a client locale ahead of its first use.
+     *
+     * @param locale the normalized locale
+     */
+    void loadLocale(final String locale) {
+        if (!locale.equals(SERVER_LOCALE)) {
+            localeDictionaries.get(locale);
+        }
+    }
+
+    /**
+     * Checks whether the dictionary of a client locale is loaded, or there is none to load.
+     *
+     * @param locale the normalized locale
+     * @return true if names rendered in the locale no longer fall back while it loads
+     */
+    boolean isLocaleLoaded(final String locale) {
+        return locale.equals(SERVER_LOCALE) || localeDictionaries.isLoaded(locale);
+    }
+
     /**
      * Format player name according to server's Bukkit version
      *
@@ -548,7 +1612,7 @@ public class LocaleManager{
      * @return Formatted name
      */
     private String formatName(Player player) {
-        if (!isBelow113()) {
+        if (!oldVersion) {
             // Better Geyser/Floodgate compatibility
             return "\"" + player.getName() + "\"";
         } else {
@@ -562,7 +1626,7 @@ public class LocaleManager{
      * @return true if Bukkit version is at 1.9 or above
      */
     public boolean hasBasePotionData() {
-        return hasBasePotionData;
+        return capabilities.hasBasePotionData();
     }
 
     /**
@@ -571,7 +1635,7 @@ public class LocaleManager{
      * @return true if Bukkit version is at 1.17 or above
      */
     public boolean hasRepackagedNms() {
-        return hasRepackagedNms;
+        return capabilities.hasRepackagedNms();
     }
 
     /**
@@ -580,46 +1644,15 @@ public class LocaleManager{
      * @return true if Bukkit version is at 1.12.2 or below
      */
     public boolean isBelow113() {
-        return _isBelow113(Bukkit.getServer().getBukkitVersion().split("-")[0]);
-    }
-
-    private boolean _isBelow113(final String bukkitVersion) {
-        if (bukkitVersion.matches("^[0-9A-Za-z]+(\\.[0-9A-Za-z]+)*$")) {
-            switch(bukkitVersion) {
-            case "1.12.2" :
-            case "1.12.1" :
-            case "1.12" :
-            case "1.11.2" :
-            case "1.11.1" :
-            case "1.11" :
-            case "1.10.2" :
-            case "1.10.1" :
-            case "1.10" :
-            case "1.9.4" :
-            case "1.9.3" :
-            case "1.9.2" :
-            case "1.9.1" :
-            case "1.9" :
-            case "1.8.9" :
-            case "1.8.8" :
-            case "1.8.7" :
-            case "1.8.6" :
-            case "1.8.5" :
-            case "1.8.4" :
-            case "1.8.3" :
-            case "1.8.2" :
-            case "1.8.1" :
-            case "1.8" :
-            case "1.7.10" :
-            case "1.7.9" :
-            case "1.7.2" :
-                return true;
-            default:
-                // Bukkit version is 1.13+ or unsupported
-                return false;
-            }
-        }
-        Bukkit.getLogger().severe("[LocaleLib] Received invalid Bukkit version " + bukkitVersion);
-        return false;
+        return oldVersion;
+    }
+
+    /**
+     * Gets the capabilities of the server, as detected when this manager was created.
+     *
+     * @return the capabilities snapshot
+     */
+    public ServerCapabilities getServerCapabilities() {
+        return capabilities;
     }
 }
@@ -0,0 +1,300 @@
+package me.pikamug.localelib;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runtime counters and latency histograms of a {@link LocaleManager}. Recording is off by default
+ * and then costs a single volatile read per call site; once enabled, every figure is kept in
+ * {@link LongAdder}s so that concurrent senders do not contend.
+ */
+public final class LocaleMetrics {
+    /**
+     * Kinds of messages sent, one per family of sendMessage and broadcast overloads.
+     */
+    public enum MessageType {
+        ITEM, POTION_1_8, ENCHANTMENT, ENTITY
+    }
+
+    /**
+     * Timed stages of sending a message.
+     */
+    public enum Stage {
+        /** Querying the keys and compiling the message template. */
+        KEY_RESOLUTION,
+        /** Rendering the tellraw JSON; not used when components are sent. */
+        JSON_BUILD,
+        /** Handing the message to the recipients, including building components. */
+        DISPATCH
+    }
+
+    /**
+     * Caches whose hit ratio is tracked.
+     */
+    public enum Cache {
+        /** Compiled message templates. */
+        TEMPLATES,
+        /** Names rendered for a client locale. */
+        RENDERED_NAMES
+    }
+
+    static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private volatile boolean enabled;
+    private final LongAdder[] messages = adders(MessageType.values().length);
+    private final LongAdder recipients = new LongAdder();
+    private final LongAdder componentDeliveries = new LongAdder();
+    private final LongAdder tellrawDeliveries = new LongAdder();
+    private final LongAdder queryFailures = new LongAdder();
+    private final LongAdder[] cacheHits = adders(Cache.values().length);
+    private final LongAdder[] cacheMisses = adders(Cache.values().length);
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Stage.values().length];
+
+    LocaleMetrics() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    private static LongAdder[] adders(final int length) {
+        final LongAdder[] adders = new LongAdder[length];
+        for (int i = 0; i < length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Checks whether metrics are being recorded.
+     *
+     * @return true if enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start or stop recording metrics. Figures recorded so far are kept.
+     *
+     * @param enabled whether to record metrics
+     */
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Reset every figure to zero.
+     */
+    public void reset() {
+        for (final LongAdder adder : messages) {
+            adder.reset();
+        }
+        recipients.reset();
+        componentDeliveries.reset();
+        tellrawDeliveries.reset();
+        queryFailures.reset();
+        for (int i = 0; i < cacheHits.length; i++) {
+            cacheHits[i].reset();
+            cacheMisses[i].reset();
+        }
+        for (final LatencyHistogram histogram : latencies) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Gets the number of messages of a type that were sent.
+     *
+     * @param type the message type
+     * @return the number of messages, counted once per broadcast
+     */
+    public long getMessageCount(final MessageType type) {
+        return messages[type.ordinal()].sum();
+    }
+
+    /**
+     * Gets the number of players that messages were delivered to.
+     *
+     * @return the number of recipients
+     */
+    public long getRecipientCount() {
+        return recipients.sum();
+    }
+
+    /**
+     * Gets the number of messages delivered as chat components.
+     *
+     * @return the number of deliveries
+     */
+    public long getComponentDeliveries() {
+        return componentDeliveries.sum();
+    }
+
+    /**
+     * Gets the number of messages delivered through the tellraw command.
+     *
+     * @return the number of deliveries
+     */
+    public long getTellrawDeliveries() {
+        return tellrawDeliveries.sum();
+    }
+
+    /**
+     * Gets the number of messages that were dropped because their material could not be queried.
+     *
+     * @return the number of failures
+     */
+    public long getQueryFailures() {
+        return queryFailures.sum();
+    }
+
+    /**
+     * Gets the number of lookups that were served by a cache.
+     *
+     * @param cache the cache
+     * @return the number of hits
+     */
+    public long getCacheHits(final Cache cache) {
+        return cacheHits[cache.ordinal()].sum();
+    }
+
+    /**
+     * Gets the number of lookups that a cache could not serve.
+     *
+     * @param cache the cache
+     * @return the number of misses
+     */
+    public long getCacheMisses(final Cache cache) {
+        return cacheMisses[cache.ordinal()].sum();
+    }
+
+    /**
+     * Gets the share of lookups that were served by a cache.
+     *
+     * @param cache the cache
+     * @return the hit ratio between 0 and 1, or 0 if there were no lookups
+     */
+    public double getHitRatio(final Cache cache) {
+        final long hits = getCacheHits(cache);
+        final long total = hits + getCacheMisses(cache);
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Gets the latency histogram of a stage.
+     *
+     * @param stage the stage
+     * @return the live histogram
+     */
+    public LatencyHistogram getLatency(final Stage stage) {
+        return latencies[stage.ordinal()];
+    }
+
+    long start() {
+        return enabled ? System.nanoTime() : NOT_TIMED;
+    }
+
+    void stop(final Stage stage, final long start) {
+        if (start != NOT_TIMED) {
+            latencies[stage.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    void countMessage(final MessageType type) {
+        if (enabled) {
+            messages[type.ordinal()].increment();
+        }
+    }
+
+    void countDelivery(final boolean components, final int recipientCount) {
+        if (enabled) {
+            (components ? componentDeliveries : tellrawDeliveries).increment();
+            recipients.add(recipientCount);
+        }
+    }
+
+    void countQueryFailure() {
+        if (enabled) {
+            queryFailures.increment();
+        }
+    }
+
+    void countLookup(final Cache cache, final boolean hit) {
+        if (enabled) {
+            (hit ? cacheHits : cacheMisses)[cache.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Histogram of latencies in power-of-two nanosecond buckets.
+     */
+    public static final class LatencyHistogram {
+        private final LongAdder[] buckets = adders(64);
+        private final LongAdder totalNanos = new LongAdder();
+
+        private LatencyHistogram() {
+        }
+
+        private void record(final long nanos) {
+            final long value = Math.max(1, nanos);
+            buckets[63 - Long.numberOfLeadingZeros(value)].increment();
+            totalNanos.add(value);
+        }
+
+        private void reset() {
+            for (final LongAdder bucket : buckets) {
+                bucket.reset();
+            }
+            totalNanos.reset();
+        }
+
+        /**
+         * Gets the number of recorded latencies.
+         *
+         * @return the count
+         */
+        public long getCount() {
+            long count = 0;
+            for (final LongAdder bucket : buckets) {
+                count += bucket.sum();
+            }
+            return count;
+        }
+
+        /**
+         * Gets the mean of the recorded latencies.
+         *
+         * @return the mean in nanoseconds, or 0 if none were recorded
+         */
+        public long getMeanNanos() {
+            final long count = getCount();
+            return count == 0 ? 0 : totalNanos.sum() / count;
+        }
+
+        /**
+         * Gets an upper bound of a percentile of the recorded latencies, accurate to a factor of two.
+         *
+         * @param percentile the percentile between 0 and 100
+         * @return the upper bound in nanoseconds, or 0 if none were recorded
+         */
+        public long getPercentileNanos(final double percentile) {
+            final long[] counts = new long[buckets.length];
+            long count = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                counts[i] = buckets[i].sum();
+                count += counts[i];
+            }
+            if (count == 0) {
+                return 0;
+            }
+            final long rank = (long) Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank && counts[i] > 0) {
+                    return i >= 62 ? Long.MAX_VALUE : (2L << i) - 1;
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+    }
+}
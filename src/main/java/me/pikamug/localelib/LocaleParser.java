@@ -1,53 +1,106 @@
 package me.pikamug.localelib;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
+/**
+ * Converts formatting tokens and builds tellraw JSON. Instances hold no state and working buffers
+ * are kept per thread, so all methods may be called concurrently.
+ */
 public class LocaleParser {
-    private static final Pattern hexTokenPattern = Pattern.compile("%#([0-9a-fA-F]{6})%");
-    private static final Pattern ampHexPattern = Pattern.compile("(?i)&#[0-9a-fA-F]{6}");
+    private static final int NO_COLOR = -1;
+    private static final int HEX_COLOR = 1 << 24;
+    private static final int STYLE_BOLD = 1;
+    private static final int STYLE_ITALIC = 1 << 1;
+    private static final int STYLE_UNDERLINE = 1 << 2;
+    private static final int STYLE_STRIKETHROUGH = 1 << 3;
+    private static final int STYLE_OBFUSCATED = 1 << 4;
+    private static final int MAX_RETAINED_BUFFER = 8192;
+    private static final String[] COLOR_NAMES = {"black", "dark_blue", "dark_green", "dark_aqua", "dark_red",
+            "dark_purple", "gold", "gray", "dark_gray", "blue", "green", "aqua", "red", "light_purple", "yellow", "white"};
+    private static final String[] STYLE_PROPERTIES = {",\"bold\":true", ",\"italic\":true", ",\"underline\":true",
+            ",\"strikethrough\":true", ",\"obfuscated\":true"};
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final String[] JSON_ESCAPES = new String[128];
+    private static final ThreadLocal<StringBuilder[]> buffers = ThreadLocal.withInitial(
+            () -> new StringBuilder[]{new StringBuilder(256), new StringBuilder(64)});
+
+    static {
+        JSON_ESCAPES['\\'] = "\\\\";
+        JSON_ESCAPES['"'] = "\\\"";
+        JSON_ESCAPES['\n'] = "\\n";
+        JSON_ESCAPES['\t'] = "\\t";
+        JSON_ESCAPES['\r'] = "\\r";
+    }
 
     /**
      * Convert common plugin formatting tokens to Minecraft's internal section-sign format.
      * Handles {@code %#RRGGBB%} and {@code &#RRGGBB} hex color tokens, as well as
-     * {@code &amp;} color codes.
+     * {@code &amp;} color codes. The message is scanned once, and returned as-is if it
+     * contains no tokens.
      *
      * @param message the raw message containing formatting tokens
      * @return the message with tokens converted to section-sign codes
      */
     public String convertFormattingTokens(final String message) {
-        String result = message;
-        // Convert %#RRGGBB% to §x§R§R§G§G§B§B
-        final Matcher hexMatcher = hexTokenPattern.matcher(result);
-        final StringBuffer hexSb = new StringBuffer();
-        while (hexMatcher.find()) {
-            final String hex = hexMatcher.group(1);
-            final String replacement = "\u00A7x\u00A7" + hex.charAt(0) + "\u00A7" + hex.charAt(1)
-                    + "\u00A7" + hex.charAt(2) + "\u00A7" + hex.charAt(3)
-                    + "\u00A7" + hex.charAt(4) + "\u00A7" + hex.charAt(5);
-            hexMatcher.appendReplacement(hexSb, replacement);
-        }
-        hexMatcher.appendTail(hexSb);
-        result = hexSb.toString();
-        // Convert &#RRGGBB to §x§R§R§G§G§B§B
-        final Matcher ampMatcher = ampHexPattern.matcher(result);
-        final StringBuffer ampSb = new StringBuffer();
-        while (ampMatcher.find()) {
-            final String hex = ampMatcher.group().substring(2);
-            final String replacement = "\u00A7x\u00A7" + hex.charAt(0) + "\u00A7" + hex.charAt(1)
-                    + "\u00A7" + hex.charAt(2) + "\u00A7" + hex.charAt(3)
-                    + "\u00A7" + hex.charAt(4) + "\u00A7" + hex.charAt(5);
-            ampMatcher.appendReplacement(ampSb, replacement);
-        }
-        ampMatcher.appendTail(ampSb);
-        return ampSb.toString();
+        final int length = message.length();
+        StringBuilder result = null;
+        int copied = 0;
+        int i = 0;
+        while (i < length) {
+            final char c = message.charAt(i);
+            final int tokenLength;
+            if (c == '%' && i + 8 < length && message.charAt(i + 1) == '#' && isHexRun(message, i + 2)
+                    && message.charAt(i + 8) == '%') {
+                // %#RRGGBB%
+                tokenLength = 9;
+            } else if (c == '&' && i + 7 < length && message.charAt(i + 1) == '#' && isHexRun(message, i + 2)) {
+                // &#RRGGBB
+                tokenLength = 8;
+            } else {
+                i++;
+                continue;
+            }
+            if (result == null) {
+                // Each token grows by at most 6 chars per 8 consumed
+                result = new StringBuilder(length + (length >> 1) + (length >> 2));
+            }
+            result.append(message, copied, i).append('\u00A7').append('x');
+            for (int j = i + 2; j < i + 8; j++) {
+                result.append('\u00A7').append(message.charAt(j));
+            }
+            i += tokenLength;
+            copied = i;
+        }
+        if (result == null) {
+            return message;
+        }
+        return result.append(message, copied, length).toString();
+    }
+
+    /**
+     * Check whether the six characters starting at the specified index are hex digits.
+     */
+    private static boolean isHexRun(final String message, final int start) {
+        for (int i = start; i < start + 6; i++) {
+            final char c = message.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F'))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
      * Build a tellraw JSON array from a message containing section-sign formatting codes
      * and placeholder strings. Hex colors ({@code §x§R§R§G§G§B§B}) are converted to
      * proper JSON {@code "color":"#RRGGBB"} properties, and placeholders are converted
-     * to {@code {"translate":"key"}} components.
+     * to {@code {"translate":"key"}} components.<p>
+     *
+     * Output is written into a buffer reused by the calling thread, so that the returned
+     * String is close to the only allocation.
      *
      * @param message the message with section-sign codes and placeholder strings
      * @param placeholders the placeholder strings to replace (e.g. {@code <item>})
@@ -55,221 +108,426 @@ public class LocaleParser {
      * @return a tellraw JSON array string
      */
     public String buildTellrawJson(String message, final String[] placeholders, final String[] translateKeys) {
-        final StringBuilder json = new StringBuilder("[");
-        final StringBuilder segment = new StringBuilder();
+        final StringBuilder[] buffer = buffers.get();
+        final StringBuilder json = buffer[0];
+        json.setLength(0);
+        json.ensureCapacity(2 * message.length() + 16);
+        json.append('[');
+        parse(message, placeholders, buffer[1], new JsonSink(json, translateKeys));
+        json.append(']');
+        final String result = json.toString();
+        release(buffer);
+        return result;
+    }
+
+    /**
+     * Compile a raw message into a reusable template. Formatting tokens are converted and the
+     * message is split into styled text runs and placeholder slots once, so that the result can
+     * be rendered repeatedly with {@link CompiledMessage#toJson(String[])}.
+     *
+     * @param message the raw message containing formatting tokens and placeholder strings
+     * @param placeholders the placeholder strings to replace (e.g. {@code <item>})
+     * @return the compiled message
+     */
+    public CompiledMessage compile(final String message, final String[] placeholders) {
+        final CompileSink sink = new CompileSink();
+        parse(convertFormattingTokens(message), placeholders, new StringBuilder(), sink);
+        return new CompiledMessage(placeholders, sink.segments);
+    }
+
+    /**
+     * Split a message with section-sign codes into styled text runs and placeholder slots,
+     * passing each to the sink in order. Style is tracked as a bitmask of {@code STYLE_*}
+     * flags, and color as a color code index or a packed {@code HEX_COLOR} value.
+     */
+    private static void parse(final String message, final String[] placeholders, final StringBuilder segment,
+            final Sink sink) {
+        segment.setLength(0);
+        final int length = message.length();
         int i = 0;
-        String color = null;
-        boolean bold = false;
-        boolean italic = false;
-        boolean underline = false;
-        boolean strikethrough = false;
-        boolean obfuscated = false;
-        boolean componentStarted = false;
+        int color = NO_COLOR;
+        int style = 0;
         int placeholderIdx = 0;
 
-        while (i < message.length()) {
+        while (i < length) {
             // Check for placeholder match
             if (placeholders != null && placeholderIdx < placeholders.length
                     && message.startsWith(placeholders[placeholderIdx], i)) {
                 // Flush current text segment
                 if (segment.length() > 0) {
-                    if (componentStarted) {
-                        json.append(",");
-                    }
-                    appendTextComponent(json, segment, color, bold, italic, underline, strikethrough, obfuscated);
+                    sink.text(segment, color, style);
                     segment.setLength(0);
-                    componentStarted = true;
                 }
                 // Build translate component with inherited color
-                if (componentStarted) {
-                    json.append(",");
-                }
-                json.append("{\"translate\":\"").append(translateKeys[placeholderIdx]).append("\"");
-                if (color != null) {
-                    json.append(",\"color\":\"").append(color).append("\"");
-                }
-                if (bold) {
-                    json.append(",\"bold\":true");
-                }
-                if (italic) {
-                    json.append(",\"italic\":true");
-                }
-                if (underline) {
-                    json.append(",\"underline\":true");
-                }
-                if (strikethrough) {
-                    json.append(",\"strikethrough\":true");
-                }
-                if (obfuscated) {
-                    json.append(",\"obfuscated\":true");
-                }
-                json.append("}");
-                componentStarted = true;
+                sink.translate(placeholderIdx, color, style);
                 i += placeholders[placeholderIdx].length();
                 placeholderIdx++;
                 continue;
             }
 
-            if (message.charAt(i) == '\u00A7' && i + 1 < message.length()) {
-                final char code = Character.toLowerCase(message.charAt(i + 1));
-
-                if (code == 'x' && i + 13 < message.length()) {
-                    // Try to parse hex color: §x§R§R§G§G§B§B
-                    boolean validHex = true;
-                    for (int j = 2; j <= 13; j += 2) {
-                        if (message.charAt(i + j) != '\u00A7') {
-                            validHex = false;
-                            break;
-                        }
-                        final char hexDigit = Character.toLowerCase(message.charAt(i + j + 1));
-                        if (!((hexDigit >= '0' && hexDigit <= '9') || (hexDigit >= 'a' && hexDigit <= 'f'))) {
-                            validHex = false;
-                            break;
-                        }
-                    }
-                    if (validHex) {
-                        // Flush current segment before color change
-                        if (segment.length() > 0) {
-                            if (componentStarted) {
-                                json.append(",");
-                            }
-                            appendTextComponent(json, segment, color, bold, italic, underline, strikethrough, obfuscated);
-                            segment.setLength(0);
-                            componentStarted = true;
-                        }
-                        // Extract hex color
-                        final StringBuilder hex = new StringBuilder("#");
-                        for (int j = 0; j < 6; j++) {
-                            hex.append(Character.toLowerCase(message.charAt(i + 3 + j * 2)));
-                        }
-                        color = hex.toString();
-                        i += 14; // Skip §x§R§R§G§G§B§B
-                    } else {
-                        segment.append(message.charAt(i));
-                        i++;
-                    }
-                } else if ((code >= '0' && code <= '9') || (code >= 'a' && code <= 'f')) {
-                    // Standard color code: flush and update color
-                    if (segment.length() > 0) {
-                        if (componentStarted) {
-                            json.append(",");
-                        }
-                        appendTextComponent(json, segment, color, bold, italic, underline, strikethrough, obfuscated);
-                        segment.setLength(0);
-                        componentStarted = true;
-                    }
-                    color = getMinecraftColorName(code);
-                    i += 2;
-                } else if (code == 'l') {
-                    bold = true;
-                    i += 2;
-                } else if (code == 'o') {
-                    italic = true;
-                    i += 2;
-                } else if (code == 'n') {
-                    underline = true;
-                    i += 2;
-                } else if (code == 'm') {
-                    strikethrough = true;
-                    i += 2;
-                } else if (code == 'k') {
-                    obfuscated = true;
-                    i += 2;
-                } else if (code == 'r') {
-                    // Reset: flush and clear all formatting
+            final char c = message.charAt(i);
+            if (c != '\u00A7' || i + 1 >= length) {
+                segment.append(c);
+                i++;
+                continue;
+            }
+            final char code = Character.toLowerCase(message.charAt(i + 1));
+            if (code == 'x') {
+                // Try to parse hex color: §x§R§R§G§G§B§B
+                final int rgb = i + 13 < length ? parseHexColor(message, i) : -1;
+                if (rgb >= 0) {
+                    // Flush current segment before color change
                     if (segment.length() > 0) {
-                        if (componentStarted) {
-                            json.append(",");
-                        }
-                        appendTextComponent(json, segment, color, bold, italic, underline, strikethrough, obfuscated);
+                        sink.text(segment, color, style);
                         segment.setLength(0);
-                        componentStarted = true;
                     }
-                    color = null;
-                    bold = false;
-                    italic = false;
-                    underline = false;
-                    strikethrough = false;
-                    obfuscated = false;
-                    i += 2;
+                    color = HEX_COLOR | rgb;
+                    i += 14; // Skip §x§R§R§G§G§B§B
                 } else {
-                    segment.append(message.charAt(i));
+                    segment.append(c);
                     i++;
                 }
+            } else if ((code >= '0' && code <= '9') || (code >= 'a' && code <= 'f')) {
+                // Standard color code: flush and update color
+                if (segment.length() > 0) {
+                    sink.text(segment, color, style);
+                    segment.setLength(0);
+                }
+                color = Character.digit(code, 16);
+                i += 2;
+            } else if (code == 'r') {
+                // Reset: flush and clear all formatting
+                if (segment.length() > 0) {
+                    sink.text(segment, color, style);
+                    segment.setLength(0);
+                }
+                color = NO_COLOR;
+                style = 0;
+                i += 2;
             } else {
-                segment.append(message.charAt(i));
-                i++;
+                final int flag = getStyleFlag(code);
+                if (flag != 0) {
+                    style |= flag;
+                    i += 2;
+                } else {
+                    segment.append(c);
+                    i++;
+                }
             }
         }
 
         // Flush remaining segment
         if (segment.length() > 0) {
-            if (componentStarted) {
-                json.append(",");
+            sink.text(segment, color, style);
+        }
+    }
+
+    /**
+     * Parse the {@code §x§R§R§G§G§B§B} sequence starting at the specified index.
+     *
+     * @return the RGB value, or -1 if the sequence is not a valid hex color
+     */
+    private static int parseHexColor(final String message, final int start) {
+        int rgb = 0;
+        for (int j = 2; j <= 13; j += 2) {
+            if (message.charAt(start + j) != '\u00A7') {
+                return -1;
+            }
+            final char hexDigit = Character.toLowerCase(message.charAt(start + j + 1));
+            if (hexDigit >= '0' && hexDigit <= '9') {
+                rgb = (rgb << 4) | (hexDigit - '0');
+            } else if (hexDigit >= 'a' && hexDigit <= 'f') {
+                rgb = (rgb << 4) | (hexDigit - 'a' + 10);
+            } else {
+                return -1;
             }
-            appendTextComponent(json, segment, color, bold, italic, underline, strikethrough, obfuscated);
         }
+        return rgb;
+    }
+
+    /**
+     * Map a Minecraft format code character to its style flag.
+     */
+    private static int getStyleFlag(final char code) {
+        switch (code) {
+            case 'l': return STYLE_BOLD;
+            case 'o': return STYLE_ITALIC;
+            case 'n': return STYLE_UNDERLINE;
+            case 'm': return STYLE_STRIKETHROUGH;
+            case 'k': return STYLE_OBFUSCATED;
+            default: return 0;
+        }
+    }
+
+    /**
+     * Get the JSON color name or {@code #rrggbb} string of a parsed color.
+     */
+    private static String getColorName(final int color) {
+        if (color == NO_COLOR) {
+            return null;
+        }
+        if ((color & HEX_COLOR) != 0) {
+            final StringBuilder hex = new StringBuilder(7);
+            appendHexColor(hex, color);
+            return hex.toString();
+        }
+        return COLOR_NAMES[color];
+    }
 
-        json.append("]");
-        return json.toString();
+    private static void appendHexColor(final StringBuilder json, final int color) {
+        json.append('#');
+        for (int shift = 20; shift >= 0; shift -= 4) {
+            json.append(HEX_DIGITS[(color >> shift) & 0xF]);
+        }
     }
 
     /**
      * Append a JSON text component to the builder for the given text segment.
      */
-    private void appendTextComponent(final StringBuilder json, final StringBuilder text,
-            final String color, final boolean bold, final boolean italic,
-            final boolean underline, final boolean strikethrough, final boolean obfuscated) {
-        final String escaped = text.toString()
-                .replace("\\", "\\\\")
-                .replace("\"", "\\\"")
-                .replace("\n", "\\n")
-                .replace("\t", "\\t")
-                .replace("\r", "\\r");
-        json.append("{\"text\":\"").append(escaped).append("\"");
-        if (color != null) {
-            json.append(",\"color\":\"").append(color).append("\"");
-        }
-        if (bold) {
-            json.append(",\"bold\":true");
-        }
-        if (italic) {
-            json.append(",\"italic\":true");
-        }
-        if (underline) {
-            json.append(",\"underline\":true");
-        }
-        if (strikethrough) {
-            json.append(",\"strikethrough\":true");
-        }
-        if (obfuscated) {
-            json.append(",\"obfuscated\":true");
-        }
-        json.append("}");
+    private static void appendTextComponent(final StringBuilder json, final CharSequence text, final int color,
+            final int style) {
+        json.append("{\"text\":\"");
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            final String escape = c < JSON_ESCAPES.length ? JSON_ESCAPES[c] : null;
+            if (escape != null) {
+                json.append(escape);
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+        appendStyle(json, color, style);
     }
 
     /**
-     * Map a standard Minecraft color code character to its JSON color name.
+     * Append the style properties and closing brace of a JSON component.
      */
-    private static String getMinecraftColorName(final char code) {
-        switch (code) {
-            case '0': return "black";
-            case '1': return "dark_blue";
-            case '2': return "dark_green";
-            case '3': return "dark_aqua";
-            case '4': return "dark_red";
-            case '5': return "dark_purple";
-            case '6': return "gold";
-            case '7': return "gray";
-            case '8': return "dark_gray";
-            case '9': return "blue";
-            case 'a': return "green";
-            case 'b': return "aqua";
-            case 'c': return "red";
-            case 'd': return "light_purple";
-            case 'e': return "yellow";
-            case 'f': return "white";
-            default: return null;
+    private static void appendStyle(final StringBuilder json, final int color, final int style) {
+        if (color != NO_COLOR) {
+            json.append(",\"color\":\"");
+            if ((color & HEX_COLOR) != 0) {
+                appendHexColor(json, color);
+            } else {
+                json.append(COLOR_NAMES[color]);
+            }
+            json.append('"');
+        }
+        for (int i = 0; i < STYLE_PROPERTIES.length; i++) {
+            if ((style & (1 << i)) != 0) {
+                json.append(STYLE_PROPERTIES[i]);
+            }
+        }
+        json.append('}');
+    }
+
+    /**
+     * Drop buffers that grew unusually large so that a single long message is not retained.
+     */
+    private static void release(final StringBuilder[] buffer) {
+        for (final StringBuilder sb : buffer) {
+            if (sb.capacity() > MAX_RETAINED_BUFFER) {
+                sb.setLength(0);
+                sb.trimToSize();
+            }
+        }
+    }
+
+    /**
+     * Receives the styled text runs and placeholder slots of a parsed message.
+     */
+    private interface Sink {
+        void text(StringBuilder text, int color, int style);
+
+        void translate(int placeholderIdx, int color, int style);
+    }
+
+    /**
+     * Writes parsed components straight into a tellraw JSON array.
+     */
+    private static final class JsonSink implements Sink {
+        private final StringBuilder json;
+        private final String[] translateKeys;
+        private boolean componentStarted = false;
+
+        private JsonSink(final StringBuilder json, final String[] translateKeys) {
+            this.json = json;
+            this.translateKeys = translateKeys;
+        }
+
+        @Override
+        public void text(final StringBuilder text, final int color, final int style) {
+            if (componentStarted) {
+                json.append(',');
+            }
+            appendTextComponent(json, text, color, style);
+            componentStarted = true;
+        }
+
+        @Override
+        public void translate(final int placeholderIdx, final int color, final int style) {
+            if (componentStarted) {
+                json.append(',');
+            }
+            json.append("{\"translate\":\"").append(translateKeys[placeholderIdx]).append('"');
+            appendStyle(json, color, style);
+            componentStarted = true;
+        }
+    }
+
+    /**
+     * Collects parsed components as immutable segments of a {@link CompiledMessage}.
+     */
+    private static final class CompileSink implements Sink {
+        private final List<Segment> segments = new ArrayList<>();
+
+        @Override
+        public void text(final StringBuilder text, final int color, final int style) {
+            final StringBuilder json = new StringBuilder();
+            appendTextComponent(json, text, color, style);
+            segments.add(new Segment(text.toString(), -1, getColorName(color), style, json.toString()));
+        }
+
+        @Override
+        public void translate(final int placeholderIdx, final int color, final int style) {
+            final StringBuilder json = new StringBuilder();
+            appendStyle(json, color, style);
+            segments.add(new Segment(null, placeholderIdx, getColorName(color), style, json.toString()));
+        }
+    }
+
+    /**
+     * A message that has been parsed once into styled text runs and placeholder slots. Instances
+     * are immutable and may be rendered any number of times, from any thread.
+     */
+    public static final class CompiledMessage {
+        private final String[] placeholders;
+        private final List<Segment> segments;
+        private final int jsonLength;
+
+        private CompiledMessage(final String[] placeholders, final List<Segment> segments) {
+            this.placeholders = placeholders == null ? new String[0] : placeholders.clone();
+            this.segments = Collections.unmodifiableList(new ArrayList<>(segments));
+            int length = 2;
+            for (final Segment segment : segments) {
+                length += segment.json.length() + (segment.isPlaceholder() ? 16 : 1);
+            }
+            this.jsonLength = length;
+        }
+
+        /**
+         * Gets the styled text runs and placeholder slots of this message, in order.
+         *
+         * @return an unmodifiable list of segments
+         */
+        public List<Segment> getSegments() {
+            return segments;
+        }
+
+        /**
+         * Checks whether this message was compiled against the specified placeholder strings.
+         *
+         * @param placeholders the placeholder strings to compare
+         * @return true if the placeholders are equal
+         */
+        public boolean hasPlaceholders(final String[] placeholders) {
+            return Arrays.equals(this.placeholders, placeholders == null ? new String[0] : placeholders);
+        }
+
+        /**
+         * Render this message as a tellraw JSON array, identical to the output of
+         * {@link LocaleParser#buildTellrawJson(String, String[], String[])} for the same input.
+         *
+         * @param translateKeys the translation keys for each placeholder
+         * @return a tellraw JSON array string
+         */
+        public String toJson(final String[] translateKeys) {
+            final StringBuilder json = new StringBuilder(jsonLength + 32 * placeholders.length);
+            json.append("[");
+            boolean componentStarted = false;
+            for (final Segment segment : segments) {
+                if (componentStarted) {
+                    json.append(",");
+                }
+                if (segment.isPlaceholder()) {
+                    json.append("{\"translate\":\"").append(translateKeys[segment.placeholderIdx]).append("\"");
+                }
+                json.append(segment.json);
+                componentStarted = true;
+            }
+            json.append("]");
+            return json.toString();
+        }
+    }
+
+    /**
+     * A styled text run, or a placeholder slot to be filled with a translation key.
+     */
+    public static final class Segment {
+        private final String text;
+        private final int placeholderIdx;
+        private final String color;
+        private final int style;
+        private final String json;
+
+        private Segment(final String text, final int placeholderIdx, final String color, final int style,
+                final String json) {
+            this.text = text;
+            this.placeholderIdx = placeholderIdx;
+            this.color = color;
+            this.style = style;
+            this.json = json;
+        }
+
+        /**
+         * Gets the literal text of this run.
+         *
+         * @return the text, or null if this segment is a placeholder slot
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * Gets the index of the placeholder (and translation key) this slot is filled with.
+         *
+         * @return the placeholder index, or -1 if this segment is a text run
+         */
+        public int getPlaceholderIndex() {
+            return placeholderIdx;
+        }
+
+        public boolean isPlaceholder() {
+            return placeholderIdx >= 0;
+        }
+
+        /**
+         * Gets the JSON color of this segment.
+         *
+         * @return a color name or {@code #rrggbb} string, or null if uncolored
+         */
+        public String getColor() {
+            return color;
+        }
+
+        public boolean isBold() {
+            return (style & STYLE_BOLD) != 0;
+        }
+
+        public boolean isItalic() {
+            return (style & STYLE_ITALIC) != 0;
+        }
+
+        public boolean isUnderline() {
+            return (style & STYLE_UNDERLINE) != 0;
+        }
+
+        public boolean isStrikethrough() {
+            return (style & STYLE_STRIKETHROUGH) != 0;
+        }
+
+        public boolean isObfuscated() {
+            return (style & STYLE_OBFUSCATED) != 0;
         }
     }
 }
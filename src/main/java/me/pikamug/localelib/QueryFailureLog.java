@@ -0,0 +1,72 @@
+package me.pikamug.localelib;
+
+import org.bukkit.Bukkit;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate-limited log of failed key queries. The first occurrence of each failure is logged right
+ * away; repeats are counted and summarized in a single line at most once per interval, with the
+ * next failure after the interval has passed.
+ */
+final class QueryFailureLog {
+    private static final int MAX_REPORTED = 256;
+    private static final int MAX_SUMMARIZED = 10;
+    private final long intervalNanos;
+    private final Set<String> reported = ConcurrentHashMap.newKeySet();
+    // Counts are updated and removed atomically, so that no repeat is lost to a summary
+    private final Map<String, Long> repeats = new ConcurrentHashMap<>();
+    private final AtomicLong nextSummary;
+
+    QueryFailureLog(final long intervalMillis) {
+        intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        nextSummary = new AtomicLong(System.nanoTime() + intervalNanos);
+    }
+
+    /**
+     * Log a failure, or count it towards the next summary if it was logged before.
+     *
+     * @param failure the failure message, starting with {@code [LocaleLib]}
+     */
+    void record(final String failure) {
+        if (reported.size() < MAX_REPORTED && reported.add(failure)) {
+            Bukkit.getLogger().severe(failure);
+        } else {
+            repeats.merge(failure, 1L, Long::sum);
+        }
+        final long now = System.nanoTime();
+        final long next = nextSummary.get();
+        if (now - next >= 0 && nextSummary.compareAndSet(next, now + intervalNanos)) {
+            summarize();
+        }
+    }
+
+    private void summarize() {
+        final StringBuilder failures = new StringBuilder();
+        long total = 0;
+        int listed = 0;
+        for (final String failure : repeats.keySet()) {
+            final Long count = repeats.remove(failure);
+            if (count == null) {
+                continue;
+            }
+            total += count;
+            if (listed++ < MAX_SUMMARIZED) {
+                failures.append(listed > 1 ? ", " : "").append(failure.replace("[LocaleLib] ", ""))
+                        .append(" (x").append(count).append(')');
+            }
+        }
+        if (total == 0) {
+            return;
+        }
+        if (listed > MAX_SUMMARIZED) {
+            failures.append(" and ").append(listed - MAX_SUMMARIZED).append(" more");
+        }
+        Bukkit.getLogger().warning("[LocaleLib] " + total + " repeated query failures since the last report: "
+                + failures);
+    }
+}
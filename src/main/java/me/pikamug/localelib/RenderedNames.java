@@ -0,0 +1,63 @@
+package me.pikamug.localelib;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of names rendered by {@link LocaleManager#toServerLocale(String, String)}, keyed by
+ * locale and then by translation key. Only locales in active use are meant to be kept, which
+ * {@link LocaleListener} takes care of as players join, quit or change their locale.
+ */
+final class RenderedNames {
+    private final LocaleManager manager;
+    private final Map<String, Map<String, String>> byLocale = new ConcurrentHashMap<>();
+
+    RenderedNames(final LocaleManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Gets the name of a key rendered in the specified locale.
+     *
+     * @param locale the normalized locale
+     * @param key the translation key
+     * @return the rendered name
+     */
+    String get(final String locale, final String key) {
+        Map<String, String> names = byLocale.get(locale);
+        if (names == null) {
+            names = byLocale.computeIfAbsent(locale, l -> new ConcurrentHashMap<>());
+        }
+        String name = names.get(key);
+        manager.getMetrics().countLookup(LocaleMetrics.Cache.RENDERED_NAMES, name != null);
+        if (name == null) {
+            // Names rendered while the server or client locale is still loading may have fallen back
+            final boolean loaded = manager.isReady() && manager.isLocaleLoaded(locale);
+            name = manager.toServerLocale(key, locale);
+            if (loaded) {
+                names.put(key, name);
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Load the dictionary of a locale ahead of its first use.
+     *
+     * @param locale the normalized locale
+     */
+    void warm(final String locale) {
+        byLocale.computeIfAbsent(locale, l -> new ConcurrentHashMap<>());
+        manager.loadLocale(locale);
+    }
+
+    /**
+     * Drop the names of all locales except the specified ones.
+     *
+     * @param locales the normalized locales in active use
+     */
+    void retain(final Collection<String> locales) {
+        byLocale.keySet().retainAll(locales);
+    }
+}
@@ -0,0 +1,176 @@
+package me.pikamug.localelib;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.Server;
+
+/**
+ * Immutable snapshot of what the running server supports, detected once so that hot paths
+ * never re-parse the Bukkit version.
+ */
+public final class ServerCapabilities {
+    private final String bukkitVersion;
+    private final int minorVersion;
+    private final boolean below113;
+    private final boolean hasBasePotionData;
+    private final boolean hasRepackagedNms;
+    private final boolean isPost1dot18;
+    private final boolean hasComponentApi;
+    private final String craftBukkitVersion;
+
+    private ServerCapabilities(final String bukkitVersion, final int minorVersion, final boolean below113,
+            final boolean hasBasePotionData, final boolean hasRepackagedNms, final boolean isPost1dot18,
+            final boolean hasComponentApi, final String craftBukkitVersion) {
+        this.bukkitVersion = bukkitVersion;
+        this.minorVersion = minorVersion;
+        this.below113 = below113;
+        this.hasBasePotionData = hasBasePotionData;
+        this.hasRepackagedNms = hasRepackagedNms;
+        this.isPost1dot18 = isPost1dot18;
+        this.hasComponentApi = hasComponentApi;
+        this.craftBukkitVersion = craftBukkitVersion;
+    }
+
+    /**
+     * Detect the capabilities of the specified server.
+     *
+     * @param server the running server
+     * @return the capabilities snapshot
+     */
+    public static ServerCapabilities detect(final Server server) {
+        final String bukkitVersion = server.getBukkitVersion().split("-")[0];
+        final int minorVersion = parseMinorVersion(bukkitVersion);
+        boolean hasComponentApi;
+        try {
+            hasComponentApi = ComponentSender.isSupported();
+        } catch (final LinkageError e) {
+            // BungeeCord chat API is absent
+            hasComponentApi = false;
+        }
+        // Class#getPackage may be null for generated classes, so take the package from the class name
+        final String className = server.getClass().getName();
+        final String[] packageParts = className.substring(0, Math.max(0, className.lastIndexOf('.'))).split("\\.");
+        // Bukkit version is 1.20.5+ if unversioned
+        final String craftBukkitVersion = packageParts.length > 3 ? packageParts[3] : null;
+        return new ServerCapabilities(bukkitVersion, minorVersion, minorVersion >= 0 && minorVersion < 13,
+                // Bukkit version is 1.9+
+                Material.getMaterial("LINGERING_POTION") != null,
+                // Bukkit version is 1.17+
+                Material.getMaterial("AMETHYST_CLUSTER") != null,
+                // Bukkit version is 1.18+ (for NMS Item#getName)
+                Material.getMaterial("MUSIC_DISC_OTHERSIDE") != null,
+                hasComponentApi, craftBukkitVersion);
+    }
+
+    /**
+     * Parse the minor version of a Minecraft 1.x version string, i.e. 20 for {@code 1.20.4}.
+     *
+     * @param bukkitVersion the version without any {@code -R0.1-SNAPSHOT} suffix
+     * @return the minor version, or -1 if it could not be determined
+     */
+    static int parseMinorVersion(final String bukkitVersion) {
+        final String[] parts = bukkitVersion.split("\\.");
+        for (final String part : parts) {
+            if (part.isEmpty() || !isAlphanumeric(part)) {
+                Bukkit.getLogger().severe("[LocaleLib] Received invalid Bukkit version " + bukkitVersion);
+                return -1;
+            }
+        }
+        if (parts.length < 2 || !parts[0].equals("1")) {
+            // Bukkit version is unsupported
+            return -1;
+        }
+        int minor = 0;
+        final String part = parts[1];
+        for (int i = 0; i < part.length(); i++) {
+            final char c = part.charAt(i);
+            if (c < '0' || c > '9') {
+                return i == 0 ? -1 : minor;
+            }
+            minor = minor * 10 + (c - '0');
+        }
+        return minor;
+    }
+
+    private static boolean isAlphanumeric(final String part) {
+        for (int i = 0; i < part.length(); i++) {
+            final char c = part.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the Bukkit version that was detected, i.e. {@code 1.20.4}.
+     *
+     * @return the Bukkit version
+     */
+    public String getBukkitVersion() {
+        return bukkitVersion;
+    }
+
+    /**
+     * Gets the minor Minecraft version, i.e. 20 for 1.20.4.
+     *
+     * @return the minor version, or -1 if it could not be determined
+     */
+    public int getMinorVersion() {
+        return minorVersion;
+    }
+
+    /**
+     * Checks whether the server's Bukkit version is below 1.13.
+     *
+     * @return true if Bukkit version is at 1.12.2 or below
+     */
+    public boolean isBelow113() {
+        return below113;
+    }
+
+    /**
+     * Checks whether the server's Bukkit version supports use of the ItemMeta#getBasePotionData method.
+     *
+     * @return true if Bukkit version is at 1.9 or above
+     */
+    public boolean hasBasePotionData() {
+        return hasBasePotionData;
+    }
+
+    /**
+     * Checks whether the server's Bukkit version uses the post-1.16.5 package scheme.
+     *
+     * @return true if Bukkit version is at 1.17 or above
+     */
+    public boolean hasRepackagedNms() {
+        return hasRepackagedNms;
+    }
+
+    /**
+     * Checks whether the server's Bukkit version is 1.18 or above.
+     *
+     * @return true if Bukkit version is at 1.18 or above
+     */
+    public boolean isPost1dot18() {
+        return isPost1dot18;
+    }
+
+    /**
+     * Checks whether the server can send translatable chat components directly to players.
+     *
+     * @return true if the BungeeCord chat API and Player.Spigot#sendMessage are present
+     */
+    public boolean hasComponentApi() {
+        return hasComponentApi;
+    }
+
+    /**
+     * Gets the version segment of the CraftBukkit package, i.e. {@code v1_20_R3}.
+     *
+     * @return the package version, or null if CraftBukkit is unversioned (1.20.5+)
+     */
+    public String getCraftBukkitVersion() {
+        return craftBukkitVersion;
+    }
+}
@@ -0,0 +1,80 @@
+package me.pikamug.localelib;
+
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+
+import java.util.Locale;
+
+/**
+ * Executor of {@code /localelib stats [enable|disable|reset]}, which shows or controls the
+ * {@link LocaleMetrics} of the plugin's manager.
+ */
+final class StatsCommand implements CommandExecutor {
+    private final LocaleManager manager;
+
+    StatsCommand(final LocaleManager manager) {
+        this.manager = manager;
+    }
+
+    @Override
+    public boolean onCommand(final CommandSender sender, final Command command, final String label,
+            final String[] args) {
+        if (args.length == 0 || !args[0].equalsIgnoreCase("stats") || args.length > 2) {
+            return false;
+        }
+        final LocaleMetrics metrics = manager.getMetrics();
+        if (args.length == 2) {
+            switch (args[1].toLowerCase(Locale.ROOT)) {
+                case "enable":
+                    metrics.setEnabled(true);
+                    sender.sendMessage(ChatColor.GREEN + "[LocaleLib] Metrics enabled");
+                    return true;
+                case "disable":
+                    metrics.setEnabled(false);
+                    sender.sendMessage(ChatColor.GREEN + "[LocaleLib] Metrics disabled");
+                    return true;
+                case "reset":
+                    metrics.reset();
+                    sender.sendMessage(ChatColor.GREEN + "[LocaleLib] Metrics reset");
+                    return true;
+                default:
+                    return false;
+            }
+        }
+        sender.sendMessage(ChatColor.GOLD + "[LocaleLib] Metrics are " + (metrics.isEnabled() ? "enabled" : "disabled"));
+        final StringBuilder messages = new StringBuilder("Messages:");
+        for (final LocaleMetrics.MessageType type : LocaleMetrics.MessageType.values()) {
+            messages.append(' ').append(type.name().toLowerCase(Locale.ROOT)).append('=')
+                    .append(metrics.getMessageCount(type));
+        }
+        sender.sendMessage(ChatColor.GRAY + messages.toString());
+        sender.sendMessage(ChatColor.GRAY + "Deliveries: components=" + metrics.getComponentDeliveries()
+                + " tellraw=" + metrics.getTellrawDeliveries() + " recipients=" + metrics.getRecipientCount()
+                + " query failures=" + metrics.getQueryFailures());
+        for (final LocaleMetrics.Cache cache : LocaleMetrics.Cache.values()) {
+            sender.sendMessage(ChatColor.GRAY + "Cache " + cache.name().toLowerCase(Locale.ROOT) + ": hits="
+                    + metrics.getCacheHits(cache) + " misses=" + metrics.getCacheMisses(cache)
+                    + String.format(Locale.ROOT, " ratio=%.1f%%", metrics.getHitRatio(cache) * 100));
+        }
+        for (final LocaleMetrics.Stage stage : LocaleMetrics.Stage.values()) {
+            final LocaleMetrics.LatencyHistogram latency = metrics.getLatency(stage);
+            sender.sendMessage(ChatColor.GRAY + "Latency " + stage.name().toLowerCase(Locale.ROOT) + ": count="
+                    + latency.getCount() + " mean=" + formatNanos(latency.getMeanNanos())
+                    + " p50<=" + formatNanos(latency.getPercentileNanos(50))
+                    + " p99<=" + formatNanos(latency.getPercentileNanos(99)));
+        }
+        return true;
+    }
+
+    private static String formatNanos(final long nanos) {
+        if (nanos < 10_000) {
+            return nanos + "ns";
+        }
+        if (nanos < 10_000_000) {
+            return nanos / 1_000 + "\u00b5s";
+        }
+        return nanos / 1_000_000 + "ms";
+    }
+}
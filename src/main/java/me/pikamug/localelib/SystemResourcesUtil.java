@@ -7,6 +7,7 @@ import java.net.URL;
 import java.net.URLDecoder;
 import java.util.*;
 import java.util.jar.JarEntry;
+import java.util.function.Predicate;
 import java.util.jar.JarFile;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -31,19 +32,42 @@ public class SystemResourcesUtil {
      * @throws IOException if an I/O error has occurred
      */
     public static Iterator<String> findResourcesBySearch(ClassLoader loader, String baseFolder, String searchCriteria) throws IOException {
+        List<String> matchingResources = findResources(loader, baseFolder, searchCriteria, resource -> true,
+                Integer.MAX_VALUE);
+        return matchingResources.iterator();
+    }
+
+    /**
+     * Searches for the first resource path found inside the baseFolder on the loader using the searchCriteria
+     * and accepted by the filter. The search stops as soon as a match is found.
+     * @param loader The class loader to search on
+     * @param baseFolder The resource folder to search in
+     * @param searchCriteria The search criteria to apply
+     * @param filter The filter that matching resource paths must pass
+     * @return The first matching resource, or null if none was found
+     * @throws IOException if an I/O error has occurred
+     */
+    public static String findFirstResourceBySearch(ClassLoader loader, String baseFolder, String searchCriteria,
+                                                   Predicate<String> filter) throws IOException {
+        List<String> matchingResources = findResources(loader, baseFolder, searchCriteria, filter, 1);
+        return matchingResources.isEmpty() ? null : matchingResources.get(0);
+    }
+
+    private static List<String> findResources(ClassLoader loader, String baseFolder, String searchCriteria,
+                                              Predicate<String> filter, int limit) throws IOException {
         Pattern pattern = Pattern.compile(searchCriteria);
         Enumeration<URL> urls = loader.getResources(baseFolder);
 
         List<String> matchingResources = new ArrayList<>();
 
-        while (urls.hasMoreElements()) {
+        while (urls.hasMoreElements() && matchingResources.size() < limit) {
             URL url = urls.nextElement();
             String protocol = url.getProtocol();
             if (protocol.equals("jar")) {
                 String jarPath = getJarPath(url);
                 if (jarPath != null) {
                     try (JarFile jarFile = new JarFile(URLDecoder.decode(jarPath, "UTF-8"))) {
-                        matchingResources.addAll(getMatchingResourcesFromJar(jarFile, pattern, baseFolder));
+                        addMatchingResourcesFromJar(matchingResources, jarFile, pattern, baseFolder, filter, limit);
                     }
                 }
             }
@@ -51,7 +75,7 @@ public class SystemResourcesUtil {
         if (matchingResources.isEmpty()) {
             Bukkit.getLogger().warning("[LocaleLib] " + baseFolder + " could not be found!");
         }
-        return matchingResources.iterator();
+        return matchingResources;
     }
 
     private static String getJarPath(URL jarUrl) {
@@ -63,22 +87,19 @@ public class SystemResourcesUtil {
         return null;
     }
 
-    private static List<String> getMatchingResourcesFromJar(JarFile jarFile, Pattern pattern, String baseFolder) {
-        List<String> matchingResources = new ArrayList<>();
-
+    private static void addMatchingResourcesFromJar(List<String> matchingResources, JarFile jarFile, Pattern pattern,
+                                                    String baseFolder, Predicate<String> filter, int limit) {
         Enumeration<JarEntry> entries = jarFile.entries();
-        while (entries.hasMoreElements()) {
+        while (entries.hasMoreElements() && matchingResources.size() < limit) {
             JarEntry entry = entries.nextElement();
             String entryName = entry.getName();
             if (entryName.startsWith(baseFolder)) {
                 String remainingPath = entryName.substring(baseFolder.length());
                 Matcher matcher = pattern.matcher(remainingPath);
-                if (matcher.find()) {
+                if (matcher.find() && filter.test(entryName)) {
                     matchingResources.add(entryName);
                 }
             }
         }
-
-        return matchingResources;
     }
 }
\ No newline at end of file
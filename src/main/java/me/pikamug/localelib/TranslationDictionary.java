@@ -0,0 +1,303 @@
+package me.pikamug.localelib;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Read-only translation dictionary that packs all keys and values into a few flat arrays instead
+ * of holding a String and a map node per entry. Keys are split at their last dot, and the part up
+ * to and including it (i.e. {@code block.minecraft.}) is stored once and shared by every entry.
+ * Text is stored one byte per char whenever it fits in Latin-1.
+ *
+ * <p>Lookups use open addressing over the cached hash codes of the original keys. Values are
+ * materialized on each lookup, trading a small allocation for retained heap.</p>
+ */
+final class TranslationDictionary extends AbstractMap<String, String> {
+    // Layout of each record in entries
+    private static final int PREFIX = 0;
+    private static final int KEY_START = 1;
+    private static final int KEY_LENGTH = 2;
+    private static final int VALUE_START = 3;
+    private static final int VALUE_LENGTH = 4;
+    private static final int RECORD_SIZE = 5;
+
+    private final int[] prefixRanges;
+    private final int[] entries;
+    private final PackedText keyText;
+    private final byte[] narrowValues;
+    private final char[] wideValues;
+    private final int[] slots;
+    private final int size;
+    private Set<Entry<String, String>> entrySet;
+
+    private TranslationDictionary(final Map<String, String> source) {
+        size = source.size();
+        final Map<String, Integer> prefixIds = new HashMap<>();
+        final int[] hashes = new int[size];
+        final String[] suffixes = new String[size];
+        final String[] values = new String[size];
+        entries = new int[size * RECORD_SIZE];
+        int keyLength = 0;
+        int narrowLength = 0;
+        int wideLength = 0;
+        int i = 0;
+        for (final Map.Entry<String, String> entry : source.entrySet()) {
+            final String key = entry.getKey();
+            final String value = entry.getValue();
+            final int split = key.lastIndexOf('.') + 1;
+            final String prefix = key.substring(0, split);
+            Integer id = prefixIds.get(prefix);
+            if (id == null) {
+                id = prefixIds.size();
+                prefixIds.put(prefix, id);
+            }
+            hashes[i] = key.hashCode();
+            suffixes[i] = key.substring(split);
+            values[i] = value;
+            final int record = i * RECORD_SIZE;
+            entries[record + PREFIX] = id;
+            entries[record + KEY_START] = keyLength;
+            entries[record + KEY_LENGTH] = suffixes[i].length();
+            keyLength += suffixes[i].length();
+            // Values that do not fit in Latin-1 are stored wide, marked by ~start
+            if (isLatin1(value)) {
+                entries[record + VALUE_START] = narrowLength;
+                narrowLength += value.length();
+            } else {
+                entries[record + VALUE_START] = ~wideLength;
+                wideLength += value.length();
+            }
+            entries[record + VALUE_LENGTH] = value.length();
+            i++;
+        }
+        // Prefixes are stored after all suffixes in the same text
+        final String[] text = new String[size + prefixIds.size()];
+        System.arraycopy(suffixes, 0, text, 0, size);
+        prefixRanges = new int[prefixIds.size() * 2];
+        for (final Map.Entry<String, Integer> entry : prefixIds.entrySet()) {
+            text[size + entry.getValue()] = entry.getKey();
+        }
+        for (int id = 0; id < prefixRanges.length / 2; id++) {
+            prefixRanges[id * 2] = keyLength;
+            prefixRanges[id * 2 + 1] = text[size + id].length();
+            keyLength += text[size + id].length();
+        }
+        keyText = PackedText.of(text, keyLength);
+        narrowValues = new byte[narrowLength];
+        wideValues = new char[wideLength];
+        for (int entry = 0; entry < size; entry++) {
+            final String value = values[entry];
+            final int start = entries[entry * RECORD_SIZE + VALUE_START];
+            if (start >= 0) {
+                for (int c = 0; c < value.length(); c++) {
+                    narrowValues[start + c] = (byte) value.charAt(c);
+                }
+            } else {
+                value.getChars(0, value.length(), wideValues, ~start);
+            }
+        }
+
+        // Slots hold the hash next to the entry number, and the table is kept at most half full
+        int capacity = 2;
+        while (capacity < size * 2) {
+            capacity <<= 1;
+        }
+        slots = new int[capacity * 2];
+        final int mask = capacity - 1;
+        for (int entry = 0; entry < size; entry++) {
+            int slot = mix(hashes[entry]) & mask;
+            while (slots[slot * 2 + 1] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot * 2] = hashes[entry];
+            slots[slot * 2 + 1] = entry + 1;
+        }
+    }
+
+    /**
+     * Create a compact copy of the specified translations.
+     *
+     * @param translations the translations to copy, without null keys or values
+     * @return the dictionary
+     */
+    static TranslationDictionary of(final Map<String, String> translations) {
+        if (translations instanceof TranslationDictionary) {
+            return (TranslationDictionary) translations;
+        }
+        return new TranslationDictionary(translations);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return key instanceof String && find((String) key) >= 0;
+    }
+
+    @Override
+    public String get(final Object key) {
+        return getOrDefault(key, null);
+    }
+
+    @Override
+    public String getOrDefault(final Object key, final String defaultValue) {
+        if (!(key instanceof String)) {
+            return defaultValue;
+        }
+        final int entry = find((String) key);
+        return entry >= 0 ? valueOf(entry) : defaultValue;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        Set<Entry<String, String>> result = entrySet;
+        if (result == null) {
+            result = new AbstractSet<Entry<String, String>>() {
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    return new Iterator<Entry<String, String>>() {
+                        private int entry;
+
+                        @Override
+                        public boolean hasNext() {
+                            return entry < size;
+                        }
+
+                        @Override
+                        public Entry<String, String> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            final int current = entry++;
+                            return new SimpleImmutableEntry<>(keyOf(current), valueOf(current));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+            entrySet = result;
+        }
+        return result;
+    }
+
+    private String keyOf(final int entry) {
+        final int record = entry * RECORD_SIZE;
+        final int prefix = entries[record + PREFIX] * 2;
+        return keyText.substring(prefixRanges[prefix], prefixRanges[prefix + 1])
+                + keyText.substring(entries[record + KEY_START], entries[record + KEY_LENGTH]);
+    }
+
+    private String valueOf(final int entry) {
+        final int record = entry * RECORD_SIZE;
+        final int start = entries[record + VALUE_START];
+        final int length = entries[record + VALUE_LENGTH];
+        return start >= 0 ? new String(narrowValues, start, length, StandardCharsets.ISO_8859_1)
+                : new String(wideValues, ~start, length);
+    }
+
+    private int find(final String key) {
+        final int hash = key.hashCode();
+        final int mask = (slots.length >> 1) - 1;
+        int slot = mix(hash) & mask;
+        int candidate;
+        while ((candidate = slots[slot * 2 + 1]) != 0) {
+            final int entry = candidate - 1;
+            if (slots[slot * 2] == hash && matches(entry, key)) {
+                return entry;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private boolean matches(final int entry, final String key) {
+        final int record = entry * RECORD_SIZE;
+        final int prefix = entries[record + PREFIX] * 2;
+        final int prefixLength = prefixRanges[prefix + 1];
+        final int length = entries[record + KEY_LENGTH];
+        return key.length() == prefixLength + length
+                && keyText.regionMatches(prefixRanges[prefix], key, 0, prefixLength)
+                && keyText.regionMatches(entries[record + KEY_START], key, prefixLength, length);
+    }
+
+    private static boolean isLatin1(final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int mix(final int hash) {
+        final int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Concatenated text of many strings, stored as Latin-1 bytes when possible.
+     */
+    private static final class PackedText {
+        private final byte[] latin1;
+        private final char[] chars;
+
+        private PackedText(final byte[] latin1, final char[] chars) {
+            this.latin1 = latin1;
+            this.chars = chars;
+        }
+
+        private static PackedText of(final String[] strings, final int length) {
+            final char[] chars = new char[length];
+            int offset = 0;
+            for (final String string : strings) {
+                string.getChars(0, string.length(), chars, offset);
+                offset += string.length();
+            }
+            for (final char c : chars) {
+                if (c > 0xFF) {
+                    return new PackedText(null, chars);
+                }
+            }
+            final byte[] latin1 = new byte[length];
+            for (int i = 0; i < length; i++) {
+                latin1[i] = (byte) chars[i];
+            }
+            return new PackedText(latin1, null);
+        }
+
+        private String substring(final int start, final int length) {
+            return latin1 != null ? new String(latin1, start, length, StandardCharsets.ISO_8859_1)
+                    : new String(chars, start, length);
+        }
+
+        private boolean regionMatches(final int start, final String other, final int otherStart, final int length) {
+            if (latin1 == null) {
+                for (int i = 0; i < length; i++) {
+                    if (chars[start + i] != other.charAt(otherStart + i)) {
+                        return false;
+                    }
+                }
+            } else {
+                for (int i = 0; i < length; i++) {
+                    if ((latin1[start + i] & 0xFF) != other.charAt(otherStart + i)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package me.pikamug.localelib;
+
+import org.bukkit.Bukkit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of a loaded translation dictionary, so that later starts can read it back
+ * instead of parsing the lang file again. A snapshot is only used if its fingerprint (server
+ * version plus checksum of the lang asset) matches and its own checksum is intact.
+ */
+public final class TranslationSnapshot {
+    private static final int MAGIC = 0x4C4C534E; // LLSN
+    private static final int FORMAT_VERSION = 1;
+
+    private TranslationSnapshot() {
+    }
+
+    /**
+     * Build the fingerprint of a lang asset, made of the server version and the checksum of the asset.
+     *
+     * @param url the location of the lang asset
+     * @return the fingerprint
+     * @throws IOException if the asset could not be inspected
+     */
+    public static String fingerprint(final URL url) throws IOException {
+        final StringBuilder fingerprint = new StringBuilder(Bukkit.getVersion()).append('|').append(url.getPath());
+        if ("file".equals(url.getProtocol())) {
+            // Read the attributes directly, as a file connection opens a stream that locks the file on Windows
+            final Path path;
+            try {
+                path = Paths.get(url.toURI());
+            } catch (final URISyntaxException | IllegalArgumentException e) {
+                throw new IOException("Invalid lang asset location " + url, e);
+            }
+            return fingerprint.append('|').append(Files.getLastModifiedTime(path).toMillis()).append('|')
+                    .append(Files.size(path)).toString();
+        }
+        final URLConnection connection = url.openConnection();
+        if (connection instanceof JarURLConnection) {
+            connection.setUseCaches(false);
+            final JarURLConnection jarConnection = (JarURLConnection) connection;
+            final JarEntry entry = jarConnection.getJarEntry();
+            fingerprint.append('|').append(entry.getCrc()).append('|').append(entry.getSize());
+            jarConnection.getJarFile().close();
+        } else {
+            try {
+                fingerprint.append('|').append(connection.getLastModified()).append('|')
+                        .append(connection.getContentLengthLong());
+            } finally {
+                connection.getInputStream().close();
+            }
+        }
+        return fingerprint.toString();
+    }
+
+    /**
+     * Read a snapshot. The header is checked before the body is read, and the file is never
+     * memory-mapped, as a mapping would keep it locked on Windows until garbage collection and
+     * stop a stale snapshot from being replaced.
+     *
+     * @param file the snapshot file
+     * @param fingerprint the fingerprint the snapshot must have been written with
+     * @return the snapshot, or null if it is missing, stale or corrupted
+     */
+    public static Loaded read(final File file, final String fingerprint) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final ByteBuffer header = readFully(channel, 12);
+            if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+                return null;
+            }
+            final int fingerprintLength = header.getInt();
+            if (fingerprintLength < 0 || fingerprintLength > channel.size() - channel.position()) {
+                throw new IllegalArgumentException("Invalid fingerprint length " + fingerprintLength);
+            }
+            final ByteBuffer storedFingerprint = readFully(channel, fingerprintLength);
+            if (!fingerprint.equals(new String(storedFingerprint.array(), StandardCharsets.UTF_8))) {
+                return null;
+            }
+            final ByteBuffer trailer = readFully(channel, 20);
+            final long parseNanos = trailer.getLong();
+            final int count = trailer.getInt();
+            final long checksum = trailer.getLong();
+            final long bodyLength = channel.size() - channel.position();
+            if (bodyLength > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Invalid body length " + bodyLength);
+            }
+            final ByteBuffer body = readFully(channel, (int) bodyLength);
+            final CRC32 crc = new CRC32();
+            crc.update(body.duplicate());
+            if (crc.getValue() != checksum || count < 0) {
+                Bukkit.getLogger().warning("[LocaleLib] Translation snapshot is corrupted and will be rebuilt");
+                return null;
+            }
+            final Map<String, String> dictionary = new HashMap<>((int) (count / 0.75f) + 1);
+            for (int i = 0; i < count; i++) {
+                dictionary.put(readString(body), readString(body));
+            }
+            return new Loaded(dictionary, parseNanos);
+        } catch (final IOException | BufferUnderflowException | IllegalArgumentException e) {
+            Bukkit.getLogger().warning("[LocaleLib] Translation snapshot could not be read and will be rebuilt");
+            return null;
+        }
+    }
+
+    /**
+     * Write a snapshot, replacing any previous one atomically where the file system allows.
+     *
+     * @param file the snapshot file
+     * @param fingerprint the fingerprint of the lang asset the dictionary was loaded from
+     * @param dictionary the loaded dictionary
+     * @param parseNanos how long parsing the lang asset took, reported when the snapshot is used
+     * @throws IOException if the snapshot could not be written
+     */
+    public static void write(final File file, final String fingerprint, final Map<String, String> dictionary,
+            final long parseNanos) throws IOException {
+        final ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream(dictionary.size() * 64);
+        final DataOutputStream body = new DataOutputStream(bodyBytes);
+        for (final Map.Entry<String, String> entry : dictionary.entrySet()) {
+            writeString(body, entry.getKey());
+            writeString(body, entry.getValue());
+        }
+        body.flush();
+        final CRC32 crc = new CRC32();
+        crc.update(bodyBytes.toByteArray());
+
+        final File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Could not create " + parent);
+        }
+        final File temp = new File(parent, file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temp.toPath()))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            writeString(out, fingerprint);
+            out.writeLong(parseNanos);
+            out.writeInt(dictionary.size());
+            out.writeLong(crc.getValue());
+            bodyBytes.writeTo(out);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Read the specified number of bytes from the current position of a channel into a heap buffer.
+     *
+     * @return the buffer, flipped for reading
+     * @throws IOException if the channel ends early or could not be read
+     */
+    private static ByteBuffer readFully(final FileChannel channel, final int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Unexpected end of snapshot");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid string length " + length);
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A dictionary read from a snapshot.
+     */
+    public static final class Loaded {
+        private final Map<String, String> dictionary;
+        private final long parseNanos;
+
+        private Loaded(final Map<String, String> dictionary, final long parseNanos) {
+            this.dictionary = dictionary;
+            this.parseNanos = parseNanos;
+        }
+
+        public Map<String, String> getDictionary() {
+            return dictionary;
+        }
+
+        /**
+         * Gets how long parsing the lang asset took when the snapshot was written.
+         *
+         * @return the parse time in nanoseconds
+         */
+        public long getParseNanos() {
+            return parseNanos;
+        }
+    }
+}
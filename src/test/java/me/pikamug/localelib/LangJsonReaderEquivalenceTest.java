@@ -0,0 +1,243 @@
+package me.pikamug.localelib;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the streaming JSON lang file reader against the json-simple parser it replaced.
+ */
+public class LangJsonReaderEquivalenceTest {
+    private static final int ITERATIONS = 2_000;
+    private static final byte[] BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    // Single characters, and surrogate pairs that must stay together
+    private static final String[] CHARACTERS = {"a", "Z", "0", " ", ".", "%", "$", "&", "\u00A7", "\"", "\\", "/",
+            "\b", "\f", "\n", "\r", "\t", "\u0001", "\u001f", "\u00e9", "\u00ff", "\u0100", "\u20ac", "\u4e2d",
+            "\uffff", "\ud83d\ude00", "\ud800\udc00", "\udbff\udfff"};
+
+    @Test
+    public void randomFilesMatchJsonSimple() throws Exception {
+        final Random random = new Random(0x1A9650);
+        for (int i = 0; i < ITERATIONS; i++) {
+            final String json = randomObject(random);
+            final Map<String, String> expected = parseWithJsonSimple(json);
+            assertEquals("Input: " + json, expected, read(json.getBytes(StandardCharsets.UTF_8), false));
+            assertEquals("Input: " + json, expected, read(json.getBytes(StandardCharsets.UTF_8), true));
+        }
+    }
+
+    @Test
+    public void escapesMatchJsonSimple() throws Exception {
+        assertMatches("{\"quote\\\"\": \"\\\"\\\\\\/\\b\\f\\n\\r\\t\", \"upper\": \"\\u00C9\\u20AC\","
+                + " \"lower\": \"\\u00e9\\u20ac\", \"control\": \"\\u0000\\u001F\"}");
+    }
+
+    @Test
+    public void surrogatePairsMatchJsonSimple() throws Exception {
+        assertMatches("{\"escaped\": \"\\ud83d\\ude00\", \"raw\": \"\ud83d\ude00\ud800\udc00\udbff\udfff\","
+                + " \"mixed\": \"\\uD83D\ude00\"}");
+    }
+
+    @Test
+    public void multiByteUtf8MatchesJsonSimple() throws Exception {
+        assertMatches("{\"\u00e9\u00e8\": \"\u00a7a\u00c9t\u00e9\", \"\u4e2d\u6587\": \"\u6c49\u5b57\u20ac\","
+                + " \"emoji\": \"\ud83d\ude00 \ud83c\udf89\"}");
+    }
+
+    @Test
+    public void leadingByteOrderMarkIsSkipped() throws Exception {
+        final String json = "{\"block.minecraft.stone\": \"Pierre\", \"item.minecraft.apple\": \"Pomme\"}";
+        final byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        final byte[] withBom = new byte[BOM.length + body.length];
+        System.arraycopy(BOM, 0, withBom, 0, BOM.length);
+        System.arraycopy(body, 0, withBom, BOM.length, body.length);
+        assertEquals(parseWithJsonSimple(json), read(withBom, false));
+        assertEquals(parseWithJsonSimple(json), read(withBom, true));
+    }
+
+    @Test
+    public void nonStringValuesAreSkipped() throws Exception {
+        assertMatches("{\"a\": 1, \"b\": -2.5e3, \"c\": true, \"d\": false, \"e\": null, \"f\": \"kept\","
+                + " \"g\": [1, \"x\", [\"]\"], {\"y\": \"}\"}], \"h\": {\"nested\": \"not kept\", \"i\": {}},"
+                + " \"j\": \"also kept\", \"k\": []}");
+    }
+
+    @Test
+    public void emptyAndDuplicateEntriesMatchJsonSimple() throws Exception {
+        assertMatches("{}");
+        assertMatches(" \r\n\t{ \r\n\t} ");
+        assertMatches("{\"\": \"\", \"key\": \"first\", \"key\": \"second\", \"dropped\": \"first\", \"dropped\": 2}");
+    }
+
+    @Test
+    public void malformedFilesYieldEmptyMap() throws Exception {
+        final String[] malformed = {"", "   ", "[]", "\"a\"", "{", "{\"a\": \"b\"", "{\"a\": \"b\",",
+                "{a: \"b\"}", "{\"a\": \"b}", "{\"a\": [1, 2}", "{\"a\": {\"b\": \"c\"}",
+                "{\"ok\": \"value\", \"a\": \"b"};
+        for (final String json : malformed) {
+            assertEquals("Input: " + json, Collections.emptyMap(), parseWithJsonSimple(json));
+            assertEquals("Input: " + json, Collections.emptyMap(), read(json.getBytes(StandardCharsets.UTF_8), false));
+            assertEquals("Input: " + json, Collections.emptyMap(), read(json.getBytes(StandardCharsets.UTF_8), true));
+        }
+    }
+
+    @Test
+    public void invalidJsonToleratedByJsonSimpleYieldsEmptyMap() {
+        // json-simple accepted these, but they are not JSON and no lang file contains them
+        final String[] malformed = {"{\"a\" \"b\"}", "{\"a\": \"b\" \"c\": \"d\"}", "{\"a\": \"\\q\"}",
+                "{\"a\": \"\\u12G4\"}", "{\"a\": \"\\u12\"}"};
+        for (final String json : malformed) {
+            assertEquals("Input: " + json, Collections.emptyMap(), read(json.getBytes(StandardCharsets.UTF_8), false));
+        }
+    }
+
+    private static void assertMatches(final String json) throws IOException, ParseException {
+        final Map<String, String> expected = parseWithJsonSimple(json);
+        assertEquals("Input: " + json, expected, read(json.getBytes(StandardCharsets.UTF_8), false));
+        assertEquals("Input: " + json, expected, read(json.getBytes(StandardCharsets.UTF_8), true));
+    }
+
+    /**
+     * Read with {@link LocaleKeys#loadJsonFile}, optionally one byte at a time so that every
+     * token and multi-byte sequence is split across buffer refills.
+     */
+    private static Map<String, String> read(final byte[] json, final boolean byteByByte) {
+        return LocaleKeys.loadJsonFile(new ByteArrayInputStream(json) {
+            @Override
+            public synchronized int read(final byte[] b, final int off, final int len) {
+                return super.read(b, off, byteByByte ? Math.min(len, 1) : len);
+            }
+        });
+    }
+
+    /**
+     * The json-simple implementation of {@link LocaleKeys#loadJsonFile} that the streaming reader
+     * replaced, decoding as UTF-8 rather than the platform default.
+     */
+    private static Map<String, String> parseWithJsonSimple(final String json) throws IOException {
+        final HashMap<String, String> map = new HashMap<>();
+        try {
+            final JSONParser parser = new JSONParser();
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+            final JSONObject object = (JSONObject) parser.parse(reader);
+            for (final Object key : object.keySet()) {
+                final String keyStr = (String) key;
+                if (object.get(keyStr) instanceof String) {
+                    map.put(keyStr, (String) object.get(keyStr));
+                }
+            }
+        } catch (final ParseException | ClassCastException e) {
+            map.clear();
+        }
+        return map;
+    }
+
+    private static String randomObject(final Random random) {
+        final StringBuilder json = new StringBuilder();
+        whitespace(random, json);
+        json.append('{');
+        final int entries = random.nextInt(12);
+        for (int i = 0; i < entries; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            whitespace(random, json);
+            appendString(random, json);
+            whitespace(random, json);
+            json.append(':');
+            whitespace(random, json);
+            if (random.nextInt(4) == 0) {
+                appendNonString(random, json, 0);
+            } else {
+                appendString(random, json);
+            }
+            whitespace(random, json);
+        }
+        json.append('}');
+        whitespace(random, json);
+        return json.toString();
+    }
+
+    private static void appendNonString(final Random random, final StringBuilder json, final int depth) {
+        switch (random.nextInt(depth < 3 ? 7 : 5)) {
+            case 0:
+                json.append(random.nextInt(2000) - 1000);
+                break;
+            case 1:
+                json.append(random.nextInt(1000)).append('.').append(random.nextInt(100)).append("e-2");
+                break;
+            case 2:
+                json.append(random.nextBoolean());
+                break;
+            case 3:
+                json.append("null");
+                break;
+            case 4:
+                appendString(random, json.append("[")).append(']');
+                break;
+            case 5:
+                json.append('[');
+                for (int i = random.nextInt(3); i > 0; i--) {
+                    appendNonString(random, json, depth + 1);
+                    json.append(i > 1 ? "," : "");
+                }
+                json.append(']');
+                break;
+            default:
+                json.append('{');
+                for (int i = random.nextInt(3); i > 0; i--) {
+                    appendString(random, json).append(':');
+                    if (random.nextBoolean()) {
+                        appendString(random, json);
+                    } else {
+                        appendNonString(random, json, depth + 1);
+                    }
+                    json.append(i > 1 ? "," : "");
+                }
+                json.append('}');
+        }
+    }
+
+    /**
+     * Append a quoted string, writing each character raw where JSON allows it, or escaped.
+     */
+    private static StringBuilder appendString(final Random random, final StringBuilder json) {
+        json.append('"');
+        for (int i = random.nextInt(16); i > 0; i--) {
+            final String chars = CHARACTERS[random.nextInt(CHARACTERS.length)];
+            final char first = chars.charAt(0);
+            final boolean mustEscape = first == '"' || first == '\\' || first < 0x20;
+            if (!mustEscape && random.nextInt(3) != 0) {
+                json.append(chars);
+            } else if (chars.length() == 1 && "\"\\/\b\f\n\r\t".indexOf(first) >= 0 && random.nextBoolean()) {
+                json.append('\\').append("\"\\/bfnrt".charAt("\"\\/\b\f\n\r\t".indexOf(first)));
+            } else {
+                for (int j = 0; j < chars.length(); j++) {
+                    final String hex = String.format("%04x", (int) chars.charAt(j));
+                    json.append("\\u").append(random.nextBoolean() ? hex : hex.toUpperCase());
+                }
+            }
+        }
+        return json.append('"');
+    }
+
+    private static void whitespace(final Random random, final StringBuilder json) {
+        for (int i = random.nextInt(3); i > 0; i--) {
+            json.append(" \n\r\t".charAt(random.nextInt(4)));
+        }
+    }
+}
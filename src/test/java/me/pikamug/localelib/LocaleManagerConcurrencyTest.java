@@ -0,0 +1,116 @@
+package me.pikamug.localelib;
+
+import org.bukkit.Material;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Villager;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs key queries, JSON building and template cache lookups from many threads at once, and
+ * checks every result against a single-threaded run.
+ */
+public class LocaleManagerConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 20;
+    // More templates than the message cache holds, so that stripes evict while others read
+    private static final int MESSAGES = 1024;
+    private static final String[] PLACEHOLDERS = {"<item>", "<mob>"};
+    private static final String[] TRANSLATE_KEYS = {"item.minecraft.diamond_sword", "entity.minecraft.zombie"};
+
+    @BeforeClass
+    public static void installServer() {
+        TestServer.install();
+    }
+
+    @Test
+    public void concurrentCallsMatchSingleThreadedResults() throws Exception {
+        final LocaleManager manager = new LocaleManager();
+        final List<Callable<String>> calls = buildCalls(manager);
+        final String[] expected = new String[calls.size()];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = call(calls.get(i));
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        try {
+            final List<Future<List<String>>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    final List<String> mismatches = new ArrayList<>();
+                    for (int round = 0; round < ROUNDS; round++) {
+                        if (thread == 0 && round == ROUNDS / 2) {
+                            // Creating another manager must not disturb the first one
+                            new LocaleManager();
+                        }
+                        for (int j = 0; j < expected.length; j++) {
+                            final int idx = (j + thread * 7919) % expected.length;
+                            final String actual = call(calls.get(idx));
+                            if (!Objects.equals(expected[idx], actual)) {
+                                mismatches.add("Call " + idx + ": expected " + expected[idx] + " but was " + actual);
+                            }
+                        }
+                    }
+                    return mismatches;
+                }));
+            }
+            start.countDown();
+            for (final Future<List<String>> future : futures) {
+                assertEquals(Collections.emptyList(), future.get(2, TimeUnit.MINUTES));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<Callable<String>> buildCalls(final LocaleManager manager) {
+        final List<Callable<String>> calls = new ArrayList<>();
+        for (final Material material : Material.values()) {
+            if (!material.isLegacy()) {
+                calls.add(() -> manager.queryMaterial(material));
+            }
+        }
+        for (final EntityType type : EntityType.values()) {
+            calls.add(() -> manager.queryEntityType(type, null));
+        }
+        for (final Villager.Profession profession : Villager.Profession.values()) {
+            calls.add(() -> manager.queryEntityType(EntityType.VILLAGER, profession.name()));
+        }
+        final LocaleParser parser = new LocaleParser();
+        for (int i = 0; i < MESSAGES; i++) {
+            final String message = "&" + Integer.toHexString(i & 15) + "Message " + i + " &#"
+                    + String.format("%06x", i * 4099) + "with <item> %#00ff" + String.format("%02x", i & 255)
+                    + "%from <mob>";
+            calls.add(() -> parser.buildTellrawJson(parser.convertFormattingTokens(message), PLACEHOLDERS,
+                    TRANSLATE_KEYS));
+            calls.add(() -> manager.compileMessage(message, PLACEHOLDERS).toJson(TRANSLATE_KEYS));
+        }
+        return calls;
+    }
+
+    /**
+     * Make a call, turning an exception into a result so that failures are compared as well.
+     */
+    private static String call(final Callable<String> call) {
+        try {
+            return call.call();
+        } catch (final Exception ex) {
+            return "!" + ex;
+        }
+    }
+}
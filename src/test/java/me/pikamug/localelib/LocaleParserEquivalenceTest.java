@@ -0,0 +1,93 @@
+package me.pikamug.localelib;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks the single-pass formatting token converter against the regex implementation it replaced,
+ * and compiled messages against direct JSON building, over randomized inputs.
+ */
+public class LocaleParserEquivalenceTest {
+    private static final int ITERATIONS = 100_000;
+    private static final String[] PLACEHOLDERS = {"<item>", "<enchantment>", "<level>"};
+    private static final String[] TRANSLATE_KEYS = {"item.minecraft.diamond_sword",
+            "enchantment.minecraft.sharpness", "enchantment.level.5"};
+    // Fragments that are likely to form, split or nest tokens when concatenated at random
+    private static final String[] FRAGMENTS = {"%#", "%", "&#", "&", "#", "\u00A7", "\u00A7x", "x", "X", "0", "9",
+            "a", "F", "f", "g", "Z", "l", "r", " ", "text", "\"", "\\", "\n", "\u00e9", "\ud83d\ude00", "<item>",
+            "<enchantment>", "<level>", "<", ">", "%#a1B2c3%", "&#FFaa00", "&#ffaa0", "%#12345%", "&a", "&l", "&r",
+            "\u00A7a", "\u00A7l", "\u00A7r", "\u00A7x\u00A7f\u00A7f\u00A7a\u00A7a\u00A70\u00A70"};
+    private static final Pattern hexTokenPattern = Pattern.compile("%#([0-9a-fA-F]{6})%");
+    private static final Pattern ampHexPattern = Pattern.compile("(?i)&#[0-9a-fA-F]{6}");
+
+    private final LocaleParser parser = new LocaleParser();
+
+    @Test
+    public void convertFormattingTokensMatchesRegexImplementation() {
+        final Random random = new Random(0x10CA1E);
+        for (int i = 0; i < ITERATIONS; i++) {
+            final String message = randomMessage(random);
+            assertEquals("Input: " + message, convertWithRegex(message), parser.convertFormattingTokens(message));
+        }
+    }
+
+    @Test
+    public void convertFormattingTokensReturnsInputWithoutTokens() {
+        final String message = "&aNo hex tokens in <item>, only 100% & #hash";
+        assertSame(message, parser.convertFormattingTokens(message));
+    }
+
+    @Test
+    public void compiledMessageMatchesBuildTellrawJson() {
+        final Random random = new Random(0xC0FFEE);
+        for (int i = 0; i < ITERATIONS; i++) {
+            final String message = parser.convertFormattingTokens(randomMessage(random));
+            assertEquals("Input: " + message, parser.buildTellrawJson(message, PLACEHOLDERS, TRANSLATE_KEYS),
+                    parser.compile(message, PLACEHOLDERS).toJson(TRANSLATE_KEYS));
+        }
+    }
+
+    private static String randomMessage(final Random random) {
+        final StringBuilder message = new StringBuilder();
+        final int length = random.nextInt(24);
+        for (int i = 0; i < length; i++) {
+            message.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+        }
+        return message.toString();
+    }
+
+    /**
+     * The two-pass regex converter that {@link LocaleParser#convertFormattingTokens(String)} replaced.
+     */
+    private static String convertWithRegex(final String message) {
+        String result = message;
+        final Matcher hexMatcher = hexTokenPattern.matcher(result);
+        final StringBuffer hexSb = new StringBuffer();
+        while (hexMatcher.find()) {
+            final String hex = hexMatcher.group(1);
+            final String replacement = "\u00A7x\u00A7" + hex.charAt(0) + "\u00A7" + hex.charAt(1)
+                    + "\u00A7" + hex.charAt(2) + "\u00A7" + hex.charAt(3)
+                    + "\u00A7" + hex.charAt(4) + "\u00A7" + hex.charAt(5);
+            hexMatcher.appendReplacement(hexSb, replacement);
+        }
+        hexMatcher.appendTail(hexSb);
+        result = hexSb.toString();
+        final Matcher ampMatcher = ampHexPattern.matcher(result);
+        final StringBuffer ampSb = new StringBuffer();
+        while (ampMatcher.find()) {
+            final String hex = ampMatcher.group().substring(2);
+            final String replacement = "\u00A7x\u00A7" + hex.charAt(0) + "\u00A7" + hex.charAt(1)
+                    + "\u00A7" + hex.charAt(2) + "\u00A7" + hex.charAt(3)
+                    + "\u00A7" + hex.charAt(4) + "\u00A7" + hex.charAt(5);
+            ampMatcher.appendReplacement(ampSb, replacement);
+        }
+        ampMatcher.appendTail(ampSb);
+        return ampSb.toString();
+    }
+}
@@ -0,0 +1,153 @@
+package me.pikamug.localelib;
+
+import org.bukkit.Bukkit;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Server;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.enchantments.EnchantmentTarget;
+import org.bukkit.inventory.ItemStack;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Minimal Bukkit server for running tests and benchmarks without a game server. Only the methods
+ * that LocaleLib touches return anything meaningful; everything else returns null, zero or false.
+ */
+public final class TestServer {
+    private TestServer() {
+    }
+
+    /**
+     * Install the test server if no server is set yet, and register an enchantment for each
+     * {@link Enchantment} constant as the server would.
+     */
+    public static synchronized void install() {
+        if (Bukkit.getServer() != null) {
+            return;
+        }
+        final Logger logger = Logger.getLogger("TestServer");
+        logger.setLevel(Level.WARNING);
+        final Server server = (Server) Proxy.newProxyInstance(Server.class.getClassLoader(),
+                new Class<?>[]{Server.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getBukkitVersion":
+                            return "1.13.2-R0.1-SNAPSHOT";
+                        case "getVersion":
+                            return "TestServer (MC: 1.13.2)";
+                        case "getName":
+                            return "TestServer";
+                        case "getLogger":
+                            return logger;
+                        case "getOnlinePlayers":
+                            return Collections.emptyList();
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "TestServer";
+                        default:
+                            return defaultValue(method);
+                    }
+                });
+        Bukkit.setServer(server);
+        registerEnchantments();
+    }
+
+    private static void registerEnchantments() {
+        for (final Field field : Enchantment.class.getFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) || field.getType() != Enchantment.class) {
+                continue;
+            }
+            try {
+                final Enchantment constant = (Enchantment) field.get(null);
+                if (Enchantment.getByKey(constant.getKey()) == null) {
+                    Enchantment.registerEnchantment(new TestEnchantment(constant.getKey(), field.getName()));
+                }
+            } catch (final IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static Object defaultValue(final Method method) {
+        final Class<?> type = method.getReturnType();
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        } else if (type == boolean.class) {
+            return false;
+        } else if (type == char.class) {
+            return '\0';
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == float.class) {
+            return 0f;
+        } else if (type == double.class) {
+            return 0d;
+        } else if (type == byte.class) {
+            return (byte) 0;
+        } else if (type == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+
+    /**
+     * Registered enchantment, named after its legacy constant like the server's own.
+     */
+    @SuppressWarnings("deprecation")
+    private static final class TestEnchantment extends Enchantment {
+        private final String name;
+
+        private TestEnchantment(final NamespacedKey key, final String name) {
+            super(key);
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getMaxLevel() {
+            return 5;
+        }
+
+        @Override
+        public int getStartLevel() {
+            return 1;
+        }
+
+        @Override
+        public EnchantmentTarget getItemTarget() {
+            return EnchantmentTarget.ALL;
+        }
+
+        @Override
+        public boolean isTreasure() {
+            return false;
+        }
+
+        @Override
+        public boolean isCursed() {
+            return false;
+        }
+
+        @Override
+        public boolean conflictsWith(final Enchantment other) {
+            return false;
+        }
+
+        @Override
+        public boolean canEnchantItem(final ItemStack item) {
+            return true;
+        }
+    }
+}
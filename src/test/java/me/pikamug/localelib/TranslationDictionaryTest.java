@@ -0,0 +1,154 @@
+package me.pikamug.localelib;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the packed translation dictionary against {@link HashMap} lookups.
+ */
+public class TranslationDictionaryTest {
+    private static final int ITERATIONS = 200;
+    private static final String LONG_PREFIX = "block.minecraft.a_rather_long_shared_prefix_that_many_keys_have.";
+    private static final String[] SEGMENTS = {"block", "minecraft", "item", "entity", "x", "", LONG_PREFIX, ".",
+            "..", "name", "Aa", "BB", "\u00e9t\u00e9", "\u00ff", "\u0100", "\u4e2d\u6587", "\ud83d\ude00"};
+    private static final String[] VALUE_PARTS = {"Stone", " ", "%s", "%1$s", "\u00a7a", "\u00c9p\u00e9e", "\u00ff",
+            "\u0100", "\u0416\u0435\u043b\u0435\u0437\u043e", "\u77f3", "\ud83d\ude00", "\n", ""};
+
+    @Test
+    public void realLangKeysMatchHashMap() {
+        final Map<String, String> langKeys = new HashMap<>();
+        final List<Map<String, String>> tables = new ArrayList<>();
+        tables.add(LocaleKeys.getBlockKeys());
+        tables.add(LocaleKeys.getItemKeys());
+        tables.add(LocaleKeys.getPotionKeys1dot8());
+        tables.add(LocaleKeys.getPotionKeys());
+        tables.add(LocaleKeys.getSplashPotionKeys());
+        tables.add(LocaleKeys.getLingeringPotionKeys());
+        tables.add(LocaleKeys.getEntityKeys());
+        for (final Map<String, String> table : tables) {
+            // Lang keys such as tile.stone.granite.name, translated to the material name
+            for (final Map.Entry<String, String> entry : table.entrySet()) {
+                langKeys.put(entry.getValue(), entry.getKey());
+            }
+        }
+        final Map<String, String> materials = new HashMap<>();
+        tables.forEach(materials::putAll);
+        assertMatches(langKeys, new Random(1));
+        assertMatches(materials, new Random(2));
+    }
+
+    @Test
+    public void randomMapsMatchHashMap() {
+        final Random random = new Random(0xD1C7);
+        for (int i = 0; i < ITERATIONS; i++) {
+            final Map<String, String> source = new HashMap<>();
+            final int size = random.nextInt(i < ITERATIONS / 2 ? 16 : 2000);
+            while (source.size() < size) {
+                source.put(randomKey(random), randomValue(random));
+            }
+            assertMatches(source, random);
+        }
+    }
+
+    @Test
+    public void collidingHashesAreToldApart() {
+        final Map<String, String> source = new HashMap<>();
+        source.put("item.minecraft.Aa", "first");
+        source.put("item.minecraft.BB", "second");
+        source.put("AaAa", "third");
+        assertEquals("item.minecraft.Aa".hashCode(), "item.minecraft.BB".hashCode());
+        final TranslationDictionary dictionary = TranslationDictionary.of(source);
+        assertEquals("first", dictionary.get("item.minecraft.Aa"));
+        assertEquals("second", dictionary.get("item.minecraft.BB"));
+        assertEquals("third", dictionary.get("AaAa"));
+        assertNull(dictionary.get("BBBB"));
+        assertNull(dictionary.get("AaBB"));
+    }
+
+    @Test
+    public void emptyMapFindsNothing() {
+        final TranslationDictionary dictionary = TranslationDictionary.of(new HashMap<>());
+        assertTrue(dictionary.isEmpty());
+        assertNull(dictionary.get(""));
+        assertNull(dictionary.get("block.minecraft.stone"));
+        assertEquals("fallback", dictionary.getOrDefault("block.minecraft.stone", "fallback"));
+    }
+
+    private static void assertMatches(final Map<String, String> source, final Random random) {
+        final TranslationDictionary dictionary = TranslationDictionary.of(source);
+        assertSame(dictionary, TranslationDictionary.of(dictionary));
+        assertEquals(source.size(), dictionary.size());
+        for (final Map.Entry<String, String> entry : source.entrySet()) {
+            assertEquals(entry.getKey(), entry.getValue(), dictionary.get(entry.getKey()));
+            assertTrue(entry.getKey(), dictionary.containsKey(entry.getKey()));
+            // An equal key that is not the same instance must be found as well
+            assertEquals(entry.getKey(), entry.getValue(), dictionary.get(new String(entry.getKey())));
+        }
+        // Iteration rebuilds every key and value
+        assertEquals(source, new HashMap<>(dictionary));
+        assertEquals(source, dictionary);
+
+        for (final String key : source.keySet()) {
+            assertLookupMatches(source, dictionary, key + "x");
+            assertLookupMatches(source, dictionary, key + ".");
+            assertLookupMatches(source, dictionary, "x" + key);
+            if (!key.isEmpty()) {
+                assertLookupMatches(source, dictionary, key.substring(0, key.length() - 1));
+                assertLookupMatches(source, dictionary, key.substring(1));
+                final int split = key.lastIndexOf('.') + 1;
+                // Same prefix with another suffix, and the same suffix with another prefix
+                assertLookupMatches(source, dictionary, key.substring(0, split) + "missing");
+                assertLookupMatches(source, dictionary, "other." + key.substring(split));
+            }
+        }
+        for (int i = 0; i < 100; i++) {
+            assertLookupMatches(source, dictionary, randomKey(random));
+        }
+        assertNull(dictionary.get(null));
+        assertNull(dictionary.get(42));
+        assertFalse(dictionary.containsKey(null));
+    }
+
+    private static void assertLookupMatches(final Map<String, String> source, final TranslationDictionary dictionary,
+            final String key) {
+        assertEquals(key, source.get(key), dictionary.get(key));
+        assertEquals(key, source.containsKey(key), dictionary.containsKey(key));
+        assertEquals(key, source.getOrDefault(key, "default"), dictionary.getOrDefault(key, "default"));
+    }
+
+    private static String randomKey(final Random random) {
+        final StringBuilder key = new StringBuilder();
+        if (random.nextInt(3) == 0) {
+            key.append(LONG_PREFIX);
+        }
+        for (int i = random.nextInt(5); i > 0; i--) {
+            key.append(SEGMENTS[random.nextInt(SEGMENTS.length)]);
+            if (random.nextBoolean()) {
+                key.append('.');
+            }
+        }
+        if (random.nextBoolean()) {
+            key.append(random.nextInt(1000));
+        }
+        return key.toString();
+    }
+
+    private static String randomValue(final Random random) {
+        final StringBuilder value = new StringBuilder();
+        for (int i = random.nextInt(6); i > 0; i--) {
+            value.append(VALUE_PARTS[random.nextInt(VALUE_PARTS.length)]);
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,16 @@
+package net.minecraft.world.item;
+
+/**
+ * Stand-in for the NMS item class, exposing the description ID getter that LocaleManager looks up.
+ */
+public class Item {
+    private final String descriptionId;
+
+    public Item(final String descriptionId) {
+        this.descriptionId = descriptionId;
+    }
+
+    public String getDescriptionId() {
+        return descriptionId;
+    }
+}
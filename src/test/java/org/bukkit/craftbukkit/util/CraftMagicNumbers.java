@@ -0,0 +1,32 @@
+package org.bukkit.craftbukkit.util;
+
+import net.minecraft.world.item.Item;
+import org.bukkit.Material;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Stand-in for the CraftBukkit class that LocaleManager resolves item keys through, so that
+ * tests and benchmarks exercise the same method handles as a 1.20.5+ server.
+ */
+public final class CraftMagicNumbers {
+    private static final Map<Material, Item> items = new EnumMap<>(Material.class);
+
+    static {
+        for (final Material material : Material.values()) {
+            if (!material.isLegacy()) {
+                final String type = material.isBlock() ? "block" : "item";
+                items.put(material, new Item(type + ".minecraft." + material.name().toLowerCase(Locale.ROOT)));
+            }
+        }
+    }
+
+    private CraftMagicNumbers() {
+    }
+
+    public static Item getItem(final Material material) {
+        return items.get(material);
+    }
+}